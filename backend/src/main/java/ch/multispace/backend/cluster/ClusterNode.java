@@ -0,0 +1,8 @@
+package ch.multispace.backend.cluster;
+
+/**
+ * One backend instance. {@code url} is the base URL clients use to reach it, for example {@code
+ * wss://node-2.simulti.santoriello.ch}; it may be blank on a single-node deployment, where clients
+ * simply stay on the origin they already use.
+ */
+public record ClusterNode(String id, String url) {}
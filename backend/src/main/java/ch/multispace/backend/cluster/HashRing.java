@@ -0,0 +1,53 @@
+package ch.multispace.backend.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring. Each node is placed at {@link #VIRTUAL_NODES} points so keys
+ * spread evenly, and adding or removing one node only moves the keys that node gains or loses -
+ * about 1/n of them - instead of reshuffling every room.
+ */
+public final class HashRing {
+
+    static final int VIRTUAL_NODES = 128;
+
+    private final NavigableMap<Long, ClusterNode> ring = new TreeMap<>();
+    private final List<ClusterNode> nodes;
+
+    public HashRing(Collection<ClusterNode> nodes) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("A ring needs at least one node");
+        this.nodes = List.copyOf(nodes);
+        for (ClusterNode node : this.nodes) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(hash(node.id() + "#" + v), node);
+            }
+        }
+    }
+
+    /** The node owning the key: the first point clockwise from the key's hash. */
+    public ClusterNode ownerOf(String key) {
+        Map.Entry<Long, ClusterNode> entry = ring.ceilingEntry(hash(key));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    // 64-bit FNV-1a with a splitmix64 finaliser, so near-identical keys land far apart
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
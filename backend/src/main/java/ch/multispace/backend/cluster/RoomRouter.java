@@ -0,0 +1,139 @@
+package ch.multispace.backend.cluster;
+
+import ch.multispace.backend.model.ClusterMember;
+import ch.multispace.backend.repositories.ClusterMemberRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides which backend instance owns each room. A room's simulation only ever runs on its owner,
+ * chosen by consistent hashing of the room id over the current members, so every node agrees on the
+ * owner without talking to the others.
+ *
+ * <p>Membership is either static ({@code app.cluster.nodes}, the same list on every node) or kept
+ * in the {@code cluster_members} table, where each node heartbeats and the ring is rebuilt from the
+ * nodes seen recently. With neither configured the ring holds only this node, which owns every room
+ * - the single-instance behaviour.
+ */
+@Service
+public class RoomRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomRouter.class);
+
+    static final long HEARTBEAT_MS = 5_000;
+    // a node missing three heartbeats drops out of the ring
+    private static final long MEMBER_TIMEOUT_MS = 3 * HEARTBEAT_MS;
+
+    @Value("${app.cluster.self-id:local}")
+    private String selfId = "local";
+
+    @Value("${app.cluster.self-url:}")
+    private String selfUrl = "";
+
+    // comma-separated id=url pairs, e.g. node-1=http://localhost:8080,node-2=http://localhost:8081
+    @Value("${app.cluster.nodes:}")
+    private String staticNodes = "";
+
+    // static | database
+    @Value("${app.cluster.membership:static}")
+    private String membership = "static";
+
+    private final ClusterMemberRepository memberRepository;
+
+    private volatile HashRing ring;
+
+    public RoomRouter(ClusterMemberRepository memberRepository) {
+        this.memberRepository = memberRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        ring = new HashRing(withSelf(parseNodes(staticNodes)));
+        LOGGER.info(
+                "Node {} routing rooms over {} ({} membership)",
+                selfId,
+                ring.getNodes().stream().map(ClusterNode::id).toList(),
+                membership);
+    }
+
+    public ClusterNode self() {
+        return new ClusterNode(selfId, selfUrl);
+    }
+
+    public ClusterNode ownerOf(UUID roomId) {
+        return ring.ownerOf(roomId.toString());
+    }
+
+    public boolean isLocal(UUID roomId) {
+        return ownerOf(roomId).id().equals(selfId);
+    }
+
+    public List<ClusterNode> getNodes() {
+        return ring.getNodes();
+    }
+
+    /** In database mode, record this node as alive and rebuild the ring from live members. */
+    @Scheduled(fixedRate = HEARTBEAT_MS)
+    void heartbeat() {
+        if (!"database".equalsIgnoreCase(membership)) return;
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            memberRepository.save(new ClusterMember(selfId, selfUrl, now));
+            List<ClusterNode> live =
+                    memberRepository
+                            .findByLastSeenAtAfter(now.minusNanos(MEMBER_TIMEOUT_MS * 1_000_000))
+                            .stream()
+                            .map(m -> new ClusterNode(m.getNodeId(), m.getBaseUrl()))
+                            .toList();
+            updateMembers(live);
+        } catch (RuntimeException e) {
+            // keep routing with the last known ring rather than flapping ownership
+            LOGGER.warn("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    void updateMembers(List<ClusterNode> members) {
+        List<ClusterNode> next = withSelf(members);
+        if (next.equals(ring.getNodes())) return;
+        LOGGER.info(
+                "Cluster membership changed: {} -> {}",
+                ring.getNodes().stream().map(ClusterNode::id).toList(),
+                next.stream().map(ClusterNode::id).toList());
+        ring = new HashRing(next);
+    }
+
+    // sorted so equal memberships compare equal however they were read
+    private List<ClusterNode> withSelf(List<ClusterNode> nodes) {
+        List<ClusterNode> all = new ArrayList<>(nodes);
+        if (all.stream().noneMatch(n -> n.id().equals(selfId))) all.add(self());
+        all.sort(Comparator.comparing(ClusterNode::id));
+        return List.copyOf(all);
+    }
+
+    static List<ClusterNode> parseNodes(String spec) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        if (spec == null || spec.isBlank()) return nodes;
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) continue;
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalStateException(
+                        "app.cluster.nodes entries must be id=url, got: " + trimmed);
+            }
+            nodes.add(
+                    new ClusterNode(
+                            trimmed.substring(0, eq).trim(), trimmed.substring(eq + 1).trim()));
+        }
+        return nodes;
+    }
+}
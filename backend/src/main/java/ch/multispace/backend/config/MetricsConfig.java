@@ -0,0 +1,169 @@
+package ch.multispace.backend.config;
+
+import ch.multispace.backend.events.RoomsEventBroadcaster;
+import ch.multispace.backend.game.GameTraffic;
+import ch.multispace.backend.game.MatchmakingService;
+import ch.multispace.backend.game.RoomWriteBehind;
+import ch.multispace.backend.score.LeaderboardStream;
+import ch.multispace.backend.score.MatchResultWriter;
+import ch.multispace.backend.security.JwtService;
+import ch.multispace.backend.security.PasswordHasher;
+import ch.multispace.backend.services.BoundedCache;
+import ch.multispace.backend.services.IdentityCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters over counts the application already keeps, read when scraped, so nothing is added to the
+ * paths that keep them. Meters recorded as things happen - tick and score-write timings, room and
+ * connection gauges - are registered by {@code GameLoop} and {@code ScoreService} themselves. All
+ * of them are served at {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder gameTrafficMetrics() {
+        // GameTraffic is static, like the room registry; the class stands in for an instance
+        return registry -> {
+            FunctionCounter.builder(
+                            "game.snapshots.sent",
+                            GameTraffic.class,
+                            _ -> GameTraffic.snapshotsSent())
+                    .description("State snapshots sent to players")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "game.snapshots.bytes",
+                            GameTraffic.class,
+                            _ -> GameTraffic.snapshotBytes())
+                    .description("Bytes of state snapshots sent to players")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "game.send.failures",
+                            GameTraffic.class,
+                            _ -> GameTraffic.sendFailures())
+                    .description("Snapshots a player's connection failed to take")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "game.inputs.received",
+                            GameTraffic.class,
+                            _ -> GameTraffic.inputsReceived())
+                    .description("Input messages received from players")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder sseMetrics(
+            RoomsEventBroadcaster roomsEventBroadcaster, LeaderboardStream leaderboardStream) {
+        return registry -> {
+            Gauge.builder("sse.clients", roomsEventBroadcaster, RoomsEventBroadcaster::clientCount)
+                    .description("Connected SSE clients")
+                    .tag("stream", "rooms")
+                    .register(registry);
+            Gauge.builder("sse.clients", leaderboardStream, LeaderboardStream::clientCount)
+                    .description("Connected SSE clients")
+                    .tag("stream", "leaderboard")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder authMetrics(
+            PasswordHasher passwordHasher, IdentityCache identityCache, JwtService jwtService) {
+        return registry -> {
+            Gauge.builder("auth.password.hash.queue", passwordHasher, h -> h.stats().queueDepth())
+                    .description("Password hashes waiting for a hashing thread")
+                    .register(registry);
+            Gauge.builder("auth.password.hash.active", passwordHasher, h -> h.stats().active())
+                    .description("Password hashes running")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "auth.password.hash.rejected",
+                            passwordHasher,
+                            h -> h.stats().rejected())
+                    .description("Logins and registrations refused because the queue was full")
+                    .register(registry);
+            FunctionTimer.builder(
+                            "auth.password.hash",
+                            passwordHasher,
+                            h -> h.stats().hashTimes().count(),
+                            h -> h.stats().hashTimes().count() * h.stats().hashTimes().meanMs(),
+                            TimeUnit.MILLISECONDS)
+                    .description("Time spent hashing passwords")
+                    .register(registry);
+            cache(registry, "users", identityCache, IdentityCache::userStats);
+            cache(registry, "players", identityCache, IdentityCache::playerStats);
+            cache(registry, "verified-tokens", jwtService, JwtService::verifiedTokenStats);
+        };
+    }
+
+    @Bean
+    public MeterBinder matchMetrics(
+            MatchResultWriter matchResultWriter,
+            MatchmakingService matchmakingService,
+            RoomWriteBehind roomWriteBehind) {
+        return registry -> {
+            Gauge.builder("matches.results.queued", matchResultWriter, w -> w.getStats().queued())
+                    .description("Match results waiting to be written")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "matches.results.written",
+                            matchResultWriter,
+                            w -> w.getStats().written())
+                    .description("Match results written")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "matches.results.dropped",
+                            matchResultWriter,
+                            w -> w.getStats().dropped())
+                    .description("Match results dropped because the queue was full")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "matches.results.failed",
+                            matchResultWriter,
+                            w -> w.getStats().failed())
+                    .description("Match results lost to database errors after every retry")
+                    .register(registry);
+            FunctionCounter.builder(
+                            "rooms.writes.failed",
+                            roomWriteBehind,
+                            RoomWriteBehind::getFailedCount)
+                    .description("Room changes lost to database errors after every retry")
+                    .register(registry);
+            Gauge.builder(
+                            "matchmaking.queue",
+                            matchmakingService,
+                            MatchmakingService::getQueueDepth)
+                    .description("Players waiting for a quick-play match")
+                    .register(registry);
+        };
+    }
+
+    // meters hold their object weakly: pass the bean, not a method reference to it
+    private static <T> void cache(
+            MeterRegistry registry, String name, T owner, Function<T, BoundedCache.Stats> stats) {
+        Gauge.builder("cache.size", owner, o -> stats.apply(o).size())
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).hits())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).misses())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", owner, o -> stats.apply(o).evictions())
+                .tag("cache", name)
+                .register(registry);
+    }
+}
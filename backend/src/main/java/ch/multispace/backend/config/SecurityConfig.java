@@ -2,6 +2,7 @@ package ch.multispace.backend.config;
 
 import ch.multispace.backend.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -19,11 +20,6 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
 
-    @Bean
-    public org.springframework.security.crypto.password.PasswordEncoder passwordEncoder() {
-        return new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder();
-    }
-
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.cors(cors -> {}) // use CorsConfigurationSource bean
@@ -38,7 +34,11 @@ public class SecurityConfig {
                                         .permitAll()
                                         .requestMatchers("/ws/**")
                                         .permitAll()
-                                        .requestMatchers("/api/rooms/stream")
+                                        // the management port listens on loopback only
+                                        .requestMatchers(EndpointRequest.to("health", "prometheus"))
+                                        .permitAll()
+                                        .requestMatchers(
+                                                "/api/rooms/stream", "/api/leaderboard/stream")
                                         .permitAll()
                                         .anyRequest()
                                         .authenticated())
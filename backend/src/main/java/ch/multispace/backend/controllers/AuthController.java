@@ -3,8 +3,10 @@ package ch.multispace.backend.controllers;
 import ch.multispace.backend.dtos.UserDto;
 import ch.multispace.backend.exceptions.NotFoundException;
 import ch.multispace.backend.model.User;
-import ch.multispace.backend.repositories.UserRepository;
+import ch.multispace.backend.security.LoginRateLimiter;
 import ch.multispace.backend.services.AuthService;
+import ch.multispace.backend.services.IdentityCache;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -18,10 +20,13 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
-    private final UserRepository userRepository;
+    private final IdentityCache identityCache;
+    private final LoginRateLimiter loginRateLimiter;
 
     @PostMapping("/register")
-    public ResponseEntity<TokenResponse> register(@RequestBody RegisterRequest request) {
+    public ResponseEntity<TokenResponse> register(
+            @RequestBody RegisterRequest request, HttpServletRequest http) {
+        loginRateLimiter.acquireRegistration(http.getRemoteAddr());
         String token =
                 authService.register(
                         request.getEmail(), request.getUsername(), request.getPassword());
@@ -29,19 +34,29 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<TokenResponse> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<TokenResponse> login(
+            @RequestBody LoginRequest request, HttpServletRequest http) {
+        loginRateLimiter.acquireLogin(http.getRemoteAddr(), request.getEmail());
         String token = authService.login(request.getEmail(), request.getPassword());
         return ResponseEntity.ok(new TokenResponse(token));
     }
 
+    /** Revoke the bearer token this request was authenticated with. */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String authHeader) {
+        // the filter already authenticated this request, so the header holds a Bearer token
+        authService.logout(authHeader.substring("Bearer ".length()));
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/me")
     public ResponseEntity<UserDto> getCurrentUser(
             @AuthenticationPrincipal
                     org.springframework.security.core.userdetails.User userDetails) {
         // userDetails.getUsername() contains the email
         User user =
-                userRepository
-                        .findByEmail(userDetails.getUsername())
+                identityCache
+                        .userByEmail(userDetails.getUsername())
                         .orElseThrow(() -> new NotFoundException("User not found"));
         return ResponseEntity.ok(UserDto.from(user));
     }
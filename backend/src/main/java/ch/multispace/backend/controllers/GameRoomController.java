@@ -1,19 +1,25 @@
 package ch.multispace.backend.controllers;
 
+import ch.multispace.backend.cluster.RoomRouter;
 import ch.multispace.backend.dtos.CreateRoomRequestDTO;
 import ch.multispace.backend.dtos.GameRoomDto;
 import ch.multispace.backend.events.RoomsEventBroadcaster;
+import ch.multispace.backend.exceptions.ConflictException;
 import ch.multispace.backend.exceptions.ForbiddenException;
 import ch.multispace.backend.exceptions.NotFoundException;
 import ch.multispace.backend.exceptions.UnauthorizedException;
+import ch.multispace.backend.game.ConnectionStats;
+import ch.multispace.backend.game.GameLoop;
 import ch.multispace.backend.game.GameRoomService;
+import ch.multispace.backend.game.GameSession;
+import ch.multispace.backend.game.RoomDirectory;
 import ch.multispace.backend.model.GameRoom;
 import ch.multispace.backend.model.PlayerEntity;
 import ch.multispace.backend.model.User;
-import ch.multispace.backend.security.JwtService;
+import ch.multispace.backend.security.StreamTokenVerifier;
 import ch.multispace.backend.services.PlayerProvisioningService;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -30,29 +36,28 @@ public class GameRoomController {
     private final GameRoomService gameRoomService;
     private final PlayerProvisioningService playerProvisioningService;
     private final RoomsEventBroadcaster roomsEventBroadcaster;
-    private final JwtService jwtService;
+    private final StreamTokenVerifier streamTokenVerifier;
+    private final RoomRouter roomRouter;
+    private final RoomDirectory roomDirectory;
 
-    /** List open rooms */
+    /** List open rooms, from memory */
     @GetMapping
     public List<GameRoomDto> listRooms() {
-        return gameRoomService.listOpenRooms().stream().map(GameRoomDto::from).toList();
+        return roomDirectory.openRooms();
     }
 
-    /** SSE stream for live waiting room updates */
+    /** SSE stream for live waiting room updates; resumes after a Last-Event-ID */
     @GetMapping(value = "/stream", produces = "text/event-stream")
     public SseEmitter streamRooms(
             @RequestParam(name = "token", required = false) String token,
-            @RequestHeader(name = "Authorization", required = false) String authHeader) {
-        // Accept token via query param or Authorization header (Bearer ...)
-        if (token == null && authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-        }
-        if (token == null) {
-            throw new UnauthorizedException("Missing token for SSE");
-        }
-        // Validate like WebSocket
-        jwtService.validateTokenForWebSocket(token);
-        return roomsEventBroadcaster.subscribe();
+            @RequestHeader(name = "Authorization", required = false) String authHeader,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(name = "lastEventId", required = false) String lastEventIdParam) {
+        streamTokenVerifier.verify(token, authHeader);
+        // EventSource resends the header on its own reconnects; a client that opens a new
+        // EventSource instead passes the id as a parameter
+        return roomsEventBroadcaster.subscribe(
+                lastEventId != null ? lastEventId : lastEventIdParam);
     }
 
     /** Create a new room */
@@ -61,9 +66,9 @@ public class GameRoomController {
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestBody CreateRoomRequestDTO request) {
         PlayerEntity player = playerProvisioningService.forPrincipal(userDetails);
-        GameRoom room = gameRoomService.createRoom(player, request.name());
+        GameRoom room = gameRoomService.createRoom(player, request.name(), request.maxPlayers());
         roomsEventBroadcaster.broadcastRoomCreated(room);
-        return ResponseEntity.ok(GameRoomDto.from(room));
+        return ResponseEntity.ok(toDto(room));
     }
 
     /** Delete a room */
@@ -84,6 +89,9 @@ public class GameRoomController {
         if (room.getHost() == null || !room.getHost().getUser().getId().equals(user.getId())) {
             throw new ForbiddenException("Only the host may delete this room");
         }
+        if (GameRoomService.STATUS_ENDED.equals(room.getStatus())) {
+            throw new ForbiddenException("A finished room is kept as match history");
+        }
 
         gameRoomService.deleteRoom(room);
         roomsEventBroadcaster.broadcastRoomDeleted(room.getRoomId());
@@ -91,29 +99,63 @@ public class GameRoomController {
         return ResponseEntity.noContent().build();
     }
 
-    /** Join a room */
+    /**
+     * Join a room: 200 with the room once the caller is in it (also if they already were), 404 for
+     * an unknown room, 409 if it is full or its match is over.
+     */
     @PostMapping("/{roomId}/join")
     public ResponseEntity<GameRoomDto> joinRoom(
             @PathVariable UUID roomId, @AuthenticationPrincipal UserDetails userDetails) {
         PlayerEntity player = playerProvisioningService.forPrincipal(userDetails);
-        Optional<GameRoom> roomOpt = gameRoomService.joinRoom(roomId, player);
-        roomOpt.ifPresent(
-                room -> {
-                    roomsEventBroadcaster.broadcastRoomUpdated(room);
-                    if ("STARTED".equalsIgnoreCase(room.getStatus())) {
-                        roomsEventBroadcaster.broadcastRoomStarted(room);
-                    }
-                });
-        return roomOpt.map(room -> ResponseEntity.ok(GameRoomDto.from(room)))
-                .orElseGet(() -> ResponseEntity.badRequest().build());
+        GameRoomService.JoinResult result = gameRoomService.joinRoom(roomId, player);
+        GameRoom room =
+                switch (result.outcome()) {
+                    case JOINED, ALREADY_JOINED -> result.room();
+                    case NOT_FOUND -> throw new NotFoundException("Room not found");
+                    case FULL -> throw new ConflictException("Room is full");
+                    case ENDED -> throw new ConflictException("Room has ended");
+                };
+        if (result.outcome() == GameRoomService.JoinOutcome.JOINED) {
+            roomsEventBroadcaster.broadcastRoomUpdated(room);
+            if ("STARTED".equalsIgnoreCase(room.getStatus())) {
+                roomsEventBroadcaster.broadcastRoomStarted(room);
+            }
+        }
+        return ResponseEntity.ok(toDto(room));
     }
 
-    /** Get a room state */
+    /** Get a room state; only an ended (or unknown) room is read from the database */
     @GetMapping("/{roomId}")
     public ResponseEntity<GameRoomDto> getRoom(@PathVariable UUID roomId) {
-        return gameRoomService
-                .getRoom(roomId)
-                .map(room -> ResponseEntity.ok(GameRoomDto.from(room)))
+        return roomDirectory
+                .find(roomId)
+                .or(() -> gameRoomService.getRoom(roomId).map(this::toDto))
+                .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    /** RTT and jitter percentiles of the connections currently playing in a room */
+    @GetMapping("/{roomId}/latency")
+    public ConnectionStats.Summary getRoomLatency(@PathVariable UUID roomId) {
+        return runningRoom(roomId).getLatencySummary();
+    }
+
+    /** Snapshot rate (frames per second) each player in a running room currently receives */
+    @GetMapping("/{roomId}/snapshot-rates")
+    public Map<String, Double> getSnapshotRates(@PathVariable UUID roomId) {
+        return runningRoom(roomId).getSnapshotRates();
+    }
+
+    // tells the client which node runs the room, so it opens its WebSocket there
+    private GameRoomDto toDto(GameRoom room) {
+        return GameRoomDto.from(room, roomRouter.ownerOf(room.getRoomId()));
+    }
+
+    private GameSession runningRoom(UUID roomId) {
+        GameSession session = GameLoop.getRoom(roomId);
+        if (session == null) {
+            throw new NotFoundException("Room is not running");
+        }
+        return session;
+    }
 }
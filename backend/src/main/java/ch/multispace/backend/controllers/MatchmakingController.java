@@ -0,0 +1,23 @@
+package ch.multispace.backend.controllers;
+
+import ch.multispace.backend.dtos.MatchmakingStatsDto;
+import ch.multispace.backend.game.MatchmakingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/matchmaking")
+@RequiredArgsConstructor
+public class MatchmakingController {
+
+    private final MatchmakingService matchmakingService;
+
+    /** Current quick-play queue depth and the queue wait-time histogram */
+    @GetMapping("/stats")
+    public MatchmakingStatsDto stats() {
+        return new MatchmakingStatsDto(
+                matchmakingService.getQueueDepth(), matchmakingService.getWaitTimes());
+    }
+}
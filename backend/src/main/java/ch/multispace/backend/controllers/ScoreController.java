@@ -1,12 +1,27 @@
 package ch.multispace.backend.controllers;
 
+import ch.multispace.backend.dtos.LeaderboardPageDto;
 import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.dtos.PlayerRankDto;
+import ch.multispace.backend.model.RollupPeriod;
+import ch.multispace.backend.score.LeaderboardStream;
+import ch.multispace.backend.score.ScoreRollupService;
 import ch.multispace.backend.score.ScoreService;
+import ch.multispace.backend.security.StreamTokenVerifier;
+import ch.multispace.backend.services.PlayerProvisioningService;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/leaderboard")
@@ -14,10 +29,69 @@ import org.springframework.web.bind.annotation.RestController;
 public class ScoreController {
 
     private final ScoreService scoreService;
+    private final ScoreRollupService scoreRollupService;
+    private final PlayerProvisioningService playerProvisioningService;
+    private final LeaderboardStream leaderboardStream;
+    private final StreamTokenVerifier streamTokenVerifier;
 
-    /** List leaderboard entries (username + high score) */
+    /**
+     * The top of the leaderboard (username + high score), best first: {@code limit} rows, at most
+     * {@code app.leaderboard.max-page-size}. Served from memory.
+     */
     @GetMapping
-    public List<LeaderboardRowDto> listLeaderboard() {
-        return scoreService.listHighScores();
+    public List<LeaderboardRowDto> listLeaderboard(@RequestParam(required = false) Integer limit) {
+        return scoreService.topHighScores(limit);
+    }
+
+    /**
+     * SSE stream of the top of the leaderboard: a {@code snapshot} of the ranked rows, then a
+     * {@code delta} with the rows that changed whenever results move it.
+     */
+    @GetMapping(value = "/stream", produces = "text/event-stream")
+    public SseEmitter streamLeaderboard(
+            @RequestParam(name = "token", required = false) String token,
+            @RequestHeader(name = "Authorization", required = false) String authHeader) {
+        streamTokenVerifier.verify(token, authHeader);
+        return leaderboardStream.subscribe();
+    }
+
+    /**
+     * The whole leaderboard, one page at a time: pass each page's {@code next} as {@code after}.
+     */
+    @GetMapping("/page")
+    public LeaderboardPageDto leaderboardPage(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
+        return scoreService.highScorePage(after, size);
+    }
+
+    /**
+     * The caller's rank and high score, with up to {@code neighbours} rows above and below. Looked
+     * up in memory, without reading the board up to the caller.
+     */
+    @GetMapping("/me")
+    public PlayerRankDto myRank(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) Integer neighbours) {
+        UUID userId = playerProvisioningService.forPrincipal(userDetails).getUser().getId();
+        return scoreService.rankOf(userId, neighbours);
+    }
+
+    /** Best single-match scores of one UTC day ({@code date}, default today), best first. */
+    @GetMapping("/daily")
+    public List<LeaderboardRowDto> dailyLeaderboard(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate date,
+            @RequestParam(required = false) Integer limit) {
+        return scoreRollupService.top(RollupPeriod.DAY, date, limit);
+    }
+
+    /** Best single-match scores of the ISO week containing {@code date} (default this week). */
+    @GetMapping("/weekly")
+    public List<LeaderboardRowDto> weeklyLeaderboard(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate date,
+            @RequestParam(required = false) Integer limit) {
+        return scoreRollupService.top(RollupPeriod.WEEK, date, limit);
     }
 }
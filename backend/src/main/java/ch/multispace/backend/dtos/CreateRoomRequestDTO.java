@@ -1,3 +1,4 @@
 package ch.multispace.backend.dtos;
 
-public record CreateRoomRequestDTO(String name) {}
+/** maxPlayers is optional; when absent the room gets the default two-player cap. */
+public record CreateRoomRequestDTO(String name, Integer maxPlayers) {}
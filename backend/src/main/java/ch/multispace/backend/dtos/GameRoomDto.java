@@ -1,5 +1,6 @@
 package ch.multispace.backend.dtos;
 
+import ch.multispace.backend.cluster.ClusterNode;
 import ch.multispace.backend.model.GameRoom;
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -8,7 +9,9 @@ import java.util.UUID;
 /**
  * The public shape of a room. Field names match what the entity serialized before, so the frontend
  * contract is unchanged. hostUsername is added because host is @JsonIgnore'd on the entity and the
- * waiting room had no way to name the host.
+ * waiting room had no way to name the host. node is the backend instance that runs the room's game,
+ * the one the client should open its WebSocket to. live is what the room's running game shows right
+ * now, when it runs on the node that answered; null otherwise.
  */
 public record GameRoomDto(
         UUID roomId,
@@ -19,9 +22,15 @@ public record GameRoomDto(
         List<UUID> playerIds,
         String hostUsername,
         OffsetDateTime startedAt,
-        OffsetDateTime endedAt) {
+        OffsetDateTime endedAt,
+        ClusterNode node,
+        Live live) {
 
     public static GameRoomDto from(GameRoom room) {
+        return from(room, null);
+    }
+
+    public static GameRoomDto from(GameRoom room, ClusterNode node) {
         String hostUsername =
                 room.getHost() != null && room.getHost().getUser() != null
                         ? room.getHost().getUser().getUsername()
@@ -32,9 +41,30 @@ public record GameRoomDto(
                 room.getStatus(),
                 room.getMaxPlayer(),
                 room.getWave(),
-                room.getPlayerIds(),
+                List.copyOf(room.getPlayerIds()),
                 hostUsername,
                 room.getStartedAt(),
-                room.getEndedAt());
+                room.getEndedAt(),
+                node,
+                null);
     }
+
+    /** The same room, routed to node and showing live. */
+    public GameRoomDto withRuntime(ClusterNode node, Live live) {
+        return new GameRoomDto(
+                roomId,
+                roomName,
+                status,
+                maxPlayer,
+                wave,
+                playerIds,
+                hostUsername,
+                startedAt,
+                endedAt,
+                node,
+                live);
+    }
+
+    /** The running game's current level and the number of players connected to it. */
+    public record Live(int level, int players) {}
 }
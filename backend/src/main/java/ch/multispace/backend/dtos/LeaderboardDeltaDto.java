@@ -0,0 +1,9 @@
+package ch.multispace.backend.dtos;
+
+import java.util.List;
+
+/**
+ * What changed at the top of the leaderboard: the rows that entered it or whose rank or score
+ * changed, and the players who dropped out of it. Rows not mentioned are unchanged.
+ */
+public record LeaderboardDeltaDto(List<RankedRowDto> changed, List<String> removed) {}
@@ -0,0 +1,9 @@
+package ch.multispace.backend.dtos;
+
+import java.util.List;
+
+/**
+ * One page of the leaderboard. {@code next} is the opaque cursor to pass back as {@code after} for
+ * the following page, or null on the last one.
+ */
+public record LeaderboardPageDto(List<LeaderboardRowDto> rows, String next) {}
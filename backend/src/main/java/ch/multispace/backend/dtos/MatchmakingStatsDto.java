@@ -0,0 +1,6 @@
+package ch.multispace.backend.dtos;
+
+import ch.multispace.backend.game.LatencyHistogram;
+
+/** Quick-play queue depth and how long matched players waited in it. */
+public record MatchmakingStatsDto(int queueDepth, LatencyHistogram.Snapshot waitTimes) {}
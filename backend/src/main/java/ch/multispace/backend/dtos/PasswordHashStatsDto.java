@@ -0,0 +1,7 @@
+package ch.multispace.backend.dtos;
+
+import ch.multispace.backend.game.LatencyHistogram;
+
+/** Password hashes queued and running, those refused because the queue was full, and hash times. */
+public record PasswordHashStatsDto(
+        int queueDepth, int active, long rejected, LatencyHistogram.Snapshot hashTimes) {}
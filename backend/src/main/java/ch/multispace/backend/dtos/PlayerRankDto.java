@@ -0,0 +1,10 @@
+package ch.multispace.backend.dtos;
+
+import java.util.List;
+
+/**
+ * Where one player stands: their own row, up to n rows directly above and below it (both best
+ * first), and how many players are ranked in total.
+ */
+public record PlayerRankDto(
+        RankedRowDto me, List<RankedRowDto> above, List<RankedRowDto> below, int players) {}
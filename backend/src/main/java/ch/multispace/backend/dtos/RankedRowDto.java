@@ -0,0 +1,4 @@
+package ch.multispace.backend.dtos;
+
+/** A leaderboard row with its rank; players with equal scores share a rank. */
+public record RankedRowDto(int rank, String player, int score) {}
@@ -0,0 +1,26 @@
+package ch.multispace.backend.events;
+
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** In-JVM bus: events reach this node's subscribers only. The default for a single instance. */
+@Component
+@ConditionalOnProperty(name = "app.events.bus", havingValue = "local", matchIfMissing = true)
+public class LocalRoomEventBus implements RoomEventBus {
+
+    private final List<Consumer<RoomsEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(RoomsEvent event) {
+        listeners.forEach(l -> l.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<RoomsEvent> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,233 @@
+package ch.multispace.backend.events;
+
+import ch.multispace.backend.dtos.GameRoomDto;
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bus shared by every node through Postgres LISTEN/NOTIFY on {@value #CHANNEL}, so lobby clients on
+ * any node see room changes made on any other without polling.
+ *
+ * <p>Publishing delivers to this node's subscribers at once and queues the event for the other
+ * nodes. A notifier thread waits {@value #LINGER_MS} ms after the first queued event to let a burst
+ * build up, keeps only the latest event per (type, room) - a lobby only needs a room's current
+ * state - and sends the batch as JSON arrays in as few NOTIFYs as fit Postgres' payload limit. A
+ * listener thread holds one pooled connection on LISTEN and republishes other nodes' events
+ * locally; events carrying this node's origin id are dropped, since they were delivered when
+ * published.
+ */
+@Component
+@ConditionalOnProperty(name = "app.events.bus", havingValue = "postgres")
+public class PostgresRoomEventBus implements RoomEventBus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostgresRoomEventBus.class);
+
+    static final String CHANNEL = "room_events";
+    static final long LINGER_MS = 20;
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_BYTES = 7_500;
+    private static final int POLL_MS = 500;
+    private static final long RECONNECT_MS = 1_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // tells this node's own notifications apart from everyone else's
+    private final String origin = UUID.randomUUID().toString();
+    private final List<Consumer<RoomsEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Envelope> outbox = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+    private Thread notifier;
+    private Thread listener;
+
+    public PostgresRoomEventBus(
+            DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        notifier = Thread.ofPlatform().name("room-events-notify").daemon().start(this::notifyLoop);
+        listener = Thread.ofPlatform().name("room-events-listen").daemon().start(this::listenLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        notifier.interrupt();
+        listener.interrupt();
+    }
+
+    @Override
+    public void publish(RoomsEvent event) {
+        deliver(event);
+        outbox.add(
+                new Envelope(
+                        origin,
+                        event.type(),
+                        keyOf(event.payload()),
+                        objectMapper.valueToTree(event.payload())));
+    }
+
+    @Override
+    public void subscribe(Consumer<RoomsEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void deliver(RoomsEvent event) {
+        for (Consumer<RoomsEvent> l : listeners) {
+            try {
+                l.accept(event);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Room event listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // -------------------------
+    // Outbound
+    // -------------------------
+    private void notifyLoop() {
+        List<Envelope> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(outbox.take());
+                Thread.sleep(LINGER_MS);
+                outbox.drainTo(batch);
+                for (String payload : encode(coalesce(batch))) {
+                    jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {}, CHANNEL, payload);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | JsonProcessingException e) {
+                LOGGER.warn(
+                        "Dropped {} room events for other nodes: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Keep only the last event per (type, room), at the position of that last occurrence so the
+     * relative order of what remains is unchanged. Events with no room key are all kept.
+     */
+    static List<Envelope> coalesce(List<Envelope> batch) {
+        Set<String> seen = new HashSet<>();
+        List<Envelope> kept = new ArrayList<>(batch.size());
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            Envelope e = batch.get(i);
+            if (e.key() == null || seen.add(e.type() + "/" + e.key())) kept.add(e);
+        }
+        Collections.reverse(kept);
+        return kept;
+    }
+
+    /** JSON arrays of envelopes, each under {@link #MAX_PAYLOAD_BYTES}. */
+    List<String> encode(List<Envelope> envelopes) throws JsonProcessingException {
+        List<String> payloads = new ArrayList<>();
+        StringJoiner current = new StringJoiner(",", "[", "]");
+        int currentBytes = 2;
+        for (Envelope e : envelopes) {
+            String json = objectMapper.writeValueAsString(e);
+            int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes + 2 > MAX_PAYLOAD_BYTES) {
+                LOGGER.warn("Room event {} too large to notify, skipped", e.type());
+                continue;
+            }
+            if (currentBytes > 2 && currentBytes + bytes + 1 > MAX_PAYLOAD_BYTES) {
+                payloads.add(current.toString());
+                current = new StringJoiner(",", "[", "]");
+                currentBytes = 2;
+            }
+            currentBytes += bytes + (currentBytes > 2 ? 1 : 0);
+            current.add(json);
+        }
+        if (currentBytes > 2) payloads.add(current.toString());
+        return payloads;
+    }
+
+    // -------------------------
+    // Inbound
+    // -------------------------
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                LOGGER.info("Listening for room events on {}", CHANNEL);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MS);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        receive(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                // anything notified while we were away is lost; lobbies catch up on the next change
+                LOGGER.warn("Room event listener lost its connection: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void receive(String payload) {
+        try {
+            for (Envelope e : objectMapper.readValue(payload, Envelope[].class)) {
+                if (origin.equals(e.origin())) continue;
+                deliver(new RoomsEvent(e.type(), e.payload()));
+            }
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Ignoring malformed room event notification: {}", e.getMessage());
+        }
+    }
+
+    private static String keyOf(Object payload) {
+        if (payload instanceof GameRoomDto room) return String.valueOf(room.roomId());
+        if (payload instanceof UUID roomId) return roomId.toString();
+        return null;
+    }
+
+    /** One event on the wire. */
+    record Envelope(String origin, String type, String key, JsonNode payload) {}
+}
@@ -0,0 +1,18 @@
+package ch.multispace.backend.events;
+
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import java.util.function.Consumer;
+
+/**
+ * Carries waiting-room events to every node's {@link RoomsEventBroadcaster}. The broadcaster
+ * publishes here instead of writing to its emitters directly, and subscribes to receive what it
+ * should push to its own SSE clients - events from this node and, with a shared bus, from every
+ * other one.
+ */
+public interface RoomEventBus {
+
+    /** Deliver to local subscribers, and to other nodes if this bus spans them. */
+    void publish(RoomsEvent event);
+
+    void subscribe(Consumer<RoomsEvent> listener);
+}
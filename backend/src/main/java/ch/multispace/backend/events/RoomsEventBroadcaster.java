@@ -1,50 +1,176 @@
 package ch.multispace.backend.events;
 
+import ch.multispace.backend.cluster.RoomRouter;
+import ch.multispace.backend.dtos.GameRoomDto;
+import ch.multispace.backend.game.RoomDirectory;
 import ch.multispace.backend.model.GameRoom;
-import java.io.IOException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Simple SSE broadcaster for waiting room updates. Clients connect to /api/rooms/stream and receive
- * JSON events.
+ * JSON events. Events go out through the {@link RoomEventBus}, so with a shared bus the clients of
+ * every node see changes made on any of them. Rooms are sent as {@link GameRoomDto}, the same shape
+ * the REST endpoints return. Each event updates the {@link RoomDirectory} before it reaches the
+ * clients, so a client refetching on an event reads the state it announced.
+ *
+ * <p>Publishing never writes to a client. Events are queued for a dispatcher thread, which waits
+ * {@code app.rooms.coalesce-ms} after the first to let a burst build up, keeps only the latest
+ * {@code room.updated} per room, and serializes each remaining event once into an SSE frame. The
+ * frame is handed to an {@link SseFanout}: a queue of {@code app.rooms.client-queue} frames per
+ * client and {@code app.rooms.fanout-threads} senders, so a slow client only delays itself. A
+ * client that falls behind, or whose connection fails a write, is dropped; it can resume as below.
+ * A keep-alive comment every {@code app.rooms.keepalive-ms} finds connections that died quietly,
+ * and keeps proxies from timing out idle ones.
+ *
+ * <p>Every event sent gets an SSE id, {@code <epoch>-<seq>}: a sequence number, and a random epoch
+ * per process, since the numbers only mean something to the process that assigned them. The last
+ * {@code app.rooms.replay-log-size} events are kept, so a client reconnecting with {@code
+ * Last-Event-ID} is sent just the events it missed. One that missed more than that - or than a
+ * snapshot would cost - or whose id is from another node or an earlier run, is sent a single {@code
+ * snapshot} event with the open rooms instead, the same list as {@code GET /api/rooms}.
  */
 @Component
 public class RoomsEventBroadcaster {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RoomsEventBroadcaster.class);
 
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<RoomsEvent> inbox = new LinkedBlockingQueue<>();
 
-    /** Subscribe a new client; caller should have validated JWT before calling this */
-    public SseEmitter subscribe() {
-        // Set a long timeout (30 minutes)
-        SseEmitter emitter = new SseEmitter(30L * 60L * 1000L);
+    @Value("${app.rooms.replay-log-size:1000}")
+    private int replayLogSize = 1_000;
 
-        emitters.add(emitter);
+    @Value("${app.rooms.coalesce-ms:50}")
+    private long coalesceMs = 50;
 
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        emitter.onError(e -> emitters.remove(emitter));
+    @Value("${app.rooms.client-queue:256}")
+    private int clientQueue = 256;
 
-        // Optional: send a hello event
-        trySend(emitter, new RoomsEvent("hello", null));
+    @Value("${app.rooms.fanout-threads:4}")
+    private int fanoutThreads = 4;
 
-        return emitter;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    // sequence numbers are assigned, logged and queued under this lock, so every client gets the
+    // events in id order and a subscriber joins between two events, never in the middle of one
+    private final Deque<Sequenced> log = new ArrayDeque<>();
+    private long lastSeq;
+
+    private final RoomEventBus eventBus;
+    private final RoomRouter roomRouter;
+    private final RoomDirectory roomDirectory;
+    private final ObjectMapper objectMapper;
+
+    private SseFanout clients;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public RoomsEventBroadcaster(
+            RoomEventBus eventBus,
+            RoomRouter roomRouter,
+            RoomDirectory roomDirectory,
+            ObjectMapper objectMapper) {
+        this.eventBus = eventBus;
+        this.roomRouter = roomRouter;
+        this.roomDirectory = roomDirectory;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void start() {
+        clients = new SseFanout("rooms-sse-", clientQueue, fanoutThreads);
+        running = true;
+        dispatcher =
+                Thread.ofPlatform().name("rooms-sse-dispatch").daemon().start(this::dispatchLoop);
+        eventBus.subscribe(
+                event -> {
+                    roomDirectory.apply(event);
+                    inbox.add(event);
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        clients.shutdown();
+    }
+
+    /** SSE clients connected to this node. */
+    public int clientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Subscribe a new client, or resume one after {@code lastEventId} if given; caller should have
+     * validated JWT before calling this
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        synchronized (log) {
+            List<Set<DataWithMediaType>> catchUp = new ArrayList<>();
+            if (lastEventId == null) {
+                // a fresh client loads the list itself; this gives it an id to resume from
+                catchUp.add(frame(lastSeq, new RoomsEvent("hello", null)));
+            } else {
+                List<Sequenced> missed = missedSince(lastEventId);
+                if (missed == null) {
+                    catchUp.add(
+                            frame(lastSeq, new RoomsEvent("snapshot", roomDirectory.openRooms())));
+                } else {
+                    for (Sequenced s : missed) catchUp.add(s.frame());
+                }
+            }
+            // Set a long timeout (30 minutes)
+            return clients.open(30L * 60L * 1000L, catchUp);
+        }
+    }
+
+    /**
+     * The logged events after {@code lastEventId}, or null if they cannot all be replayed - or
+     * there are more of them than open rooms, when a snapshot is the smaller catch-up.
+     */
+    private List<Sequenced> missedSince(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !epoch.equals(lastEventId.substring(0, dash))) return null;
+        long seq;
+        try {
+            seq = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = log.isEmpty() ? lastSeq + 1 : log.peekFirst().seq();
+        if (seq > lastSeq || seq < oldest - 1) return null;
+        List<Sequenced> missed = log.stream().filter(s -> s.seq() > seq).toList();
+        if (missed.size() > 1 && missed.size() > roomDirectory.openRoomCount()) return null;
+        return missed;
     }
 
     public void broadcastRoomCreated(GameRoom room) {
-        broadcast(new RoomsEvent("room.created", room));
+        broadcast(new RoomsEvent("room.created", toDto(room)));
     }
 
     public void broadcastRoomUpdated(GameRoom room) {
-        broadcast(new RoomsEvent("room.updated", room));
+        broadcast(new RoomsEvent("room.updated", toDto(room)));
     }
 
     public void broadcastRoomDeleted(UUID roomId) {
@@ -52,27 +178,93 @@ public class RoomsEventBroadcaster {
     }
 
     public void broadcastRoomStarted(GameRoom room) {
-        broadcast(new RoomsEvent("room.started", room));
+        broadcast(new RoomsEvent("room.started", toDto(room)));
     }
 
     public void broadcast(RoomsEvent event) {
-        for (SseEmitter emitter : emitters) {
-            trySend(emitter, event);
+        eventBus.publish(event);
+    }
+
+    private GameRoomDto toDto(GameRoom room) {
+        return GameRoomDto.from(room, roomRouter.ownerOf(room.getRoomId()));
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.rooms.keepalive-ms:15000}",
+            fixedDelayString = "${app.rooms.keepalive-ms:15000}")
+    void keepAlive() {
+        clients.keepAlive();
+    }
+
+    private void dispatchLoop() {
+        List<RoomsEvent> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(inbox.take());
+                if (coalesceMs > 0) Thread.sleep(coalesceMs);
+                inbox.drainTo(batch);
+                for (RoomsEvent event : coalesce(batch)) {
+                    try {
+                        dispatch(event);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Dropped room event {}: {}", event.type(), e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
         }
     }
 
-    private void trySend(SseEmitter emitter, RoomsEvent event) {
+    /**
+     * Keep only the last {@code room.updated} per room, at the position of that last occurrence so
+     * the relative order of what remains is unchanged. Every other event is kept.
+     */
+    static List<RoomsEvent> coalesce(List<RoomsEvent> batch) {
+        Set<String> seen = new HashSet<>();
+        List<RoomsEvent> kept = new ArrayList<>(batch.size());
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            RoomsEvent e = batch.get(i);
+            String room = "room.updated".equals(e.type()) ? roomKeyOf(e.payload()) : null;
+            if (room == null || seen.add(room)) kept.add(e);
+        }
+        Collections.reverse(kept);
+        return kept;
+    }
+
+    // payloads are the published objects on this node, JSON trees when relayed from another
+    private static String roomKeyOf(Object payload) {
+        if (payload instanceof GameRoomDto room) return String.valueOf(room.roomId());
+        if (payload instanceof JsonNode node) return node.path("roomId").asText(null);
+        return null;
+    }
+
+    private void dispatch(RoomsEvent event) {
+        synchronized (log) {
+            long seq = ++lastSeq;
+            Set<DataWithMediaType> frame = frame(seq, event);
+            log.addLast(new Sequenced(seq, frame));
+            if (log.size() > replayLogSize) log.removeFirst();
+            clients.send(frame);
+        }
+    }
+
+    // serialized here, once per event, not once per client
+    private Set<DataWithMediaType> frame(long seq, RoomsEvent event) {
+        String json;
         try {
-            SseEmitter.SseEventBuilder builder =
-                    SseEmitter.event().name(event.type()).data(event, MediaType.APPLICATION_JSON);
-            emitter.send(builder);
-        } catch (IOException e) {
-            LOGGER.debug("SSE send failed, removing emitter: {}", e.getMessage());
-            emitter.complete();
-            emitters.remove(emitter);
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + event.type(), e);
         }
+        return SseEmitter.event().id(epoch + "-" + seq).name(event.type()).data(json).build();
     }
 
     /** Simple event record for SSE payloads */
     public record RoomsEvent(String type, Object payload) {}
+
+    private record Sequenced(long seq, Set<DataWithMediaType> frame) {}
 }
@@ -0,0 +1,136 @@
+package ch.multispace.backend.events;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * The SSE clients of one stream, written to off the caller's thread. A frame - an event built and
+ * serialized once, see {@link SseEmitter#event()} - is offered to every client's own bounded queue,
+ * and a small pool of senders drains the queues, one sender per client at a time so each client's
+ * frames go out in order. A slow client only delays itself: once its queue is full it is dropped,
+ * as is one whose connection fails a write. {@link #keepAlive} sends a comment line to every
+ * client, which finds connections that died quietly.
+ *
+ * <p>Callers that need frames in a global order (ids, a replay log) offer them under their own
+ * lock; {@link #open} and {@link #send} keep that order for every client.
+ */
+public final class SseFanout {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SseFanout.class);
+
+    private static final Set<DataWithMediaType> KEEPALIVE =
+            SseEmitter.event().comment("keepalive").build();
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final int clientQueue;
+    private final ExecutorService senders;
+
+    /**
+     * @param name prefix of the sender threads' names
+     * @param clientQueue frames a client may fall behind by before it is dropped
+     * @param threads sender threads
+     */
+    public SseFanout(String name, int clientQueue, int threads) {
+        this.clientQueue = clientQueue;
+        this.senders =
+                Executors.newFixedThreadPool(
+                        threads, Thread.ofPlatform().name(name, 0).daemon().factory());
+    }
+
+    /** A new client, sent {@code catchUp} before anything offered after this call. */
+    public SseEmitter open(long timeoutMs, List<Set<DataWithMediaType>> catchUp) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(emitter, clientQueue + catchUp.size());
+        client.queue.addAll(catchUp);
+        clients.add(client);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+        schedule(client);
+        return emitter;
+    }
+
+    /** Queue a frame for every client. Never blocks. */
+    public void send(Set<DataWithMediaType> frame) {
+        for (Client client : clients) offer(client, frame);
+    }
+
+    /** A comment line to every client; a connection that died quietly fails the write. */
+    public void keepAlive() {
+        send(KEEPALIVE);
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void offer(Client client, Set<DataWithMediaType> frame) {
+        if (client.queue.offer(frame)) {
+            schedule(client);
+        } else {
+            drop(client, "its queue is full");
+        }
+    }
+
+    private void schedule(Client client) {
+        if (client.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RuntimeException e) {
+                client.scheduled.set(false); // shutting down
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            Set<DataWithMediaType> frame;
+            while (!client.closed && (frame = client.queue.poll()) != null) {
+                client.emitter.send(frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            drop(client, e.getMessage());
+        } finally {
+            client.scheduled.set(false);
+        }
+        // a frame offered after the last poll, while this task still held the flag
+        if (!client.closed && !client.queue.isEmpty()) schedule(client);
+    }
+
+    private void drop(Client client, String reason) {
+        if (client.closed) return;
+        client.closed = true;
+        clients.remove(client);
+        client.queue.clear();
+        LOGGER.debug("Dropping SSE client: {}", reason);
+        client.emitter.complete();
+    }
+
+    private static final class Client {
+        final SseEmitter emitter;
+        final BlockingQueue<Set<DataWithMediaType>> queue;
+        // set while a sender owns the drain
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closed;
+
+        Client(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
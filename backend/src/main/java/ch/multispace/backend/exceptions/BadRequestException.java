@@ -0,0 +1,8 @@
+package ch.multispace.backend.exceptions;
+
+/** Thrown when a request is well-formed but its content cannot be used. Translated to 400. */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
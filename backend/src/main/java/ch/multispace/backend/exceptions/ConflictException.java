@@ -0,0 +1,8 @@
+package ch.multispace.backend.exceptions;
+
+/** Thrown when a valid request clashes with the resource's current state. Translated to 409. */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package ch.multispace.backend.exceptions;
+
+/**
+ * Thrown when a request is refused to protect the server, not because it is wrong: a rate limit was
+ * hit or a bounded queue is full. Translated to 429, with {@code retryAfterSeconds} as the {@code
+ * Retry-After} header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,118 @@
+package ch.multispace.backend.game;
+
+import java.util.Arrays;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Link quality of one WebSocket connection: smoothed round-trip time, jitter and the offset between
+ * the client's clock and ours. Fed by GameWebSocketHandler from protocol pongs (RTT) and from
+ * application-level {"type":"ping"} messages (clock offset). Stored as a session attribute so the
+ * room holding the session can read it without knowing about the handler.
+ *
+ * <p>RTT and jitter follow the RFC 6298 estimator (srtt gain 1/8, rttvar gain 1/4), which reacts to
+ * a degrading link within a few samples without being thrown around by a single late pong.
+ */
+public class ConnectionStats {
+
+    public static final String ATTRIBUTE = "connectionStats";
+
+    private static final double RTT_GAIN = 1.0 / 8;
+    private static final double JITTER_GAIN = 1.0 / 4;
+    private static final double OFFSET_GAIN = 1.0 / 8;
+
+    private double smoothedRttMs = -1;
+    private double jitterMs = 0;
+    private double clockOffsetMs = 0;
+    private boolean hasOffset = false;
+    private long samples = 0;
+
+    /** Stats of the given session, or null if the handler never attached any. */
+    public static ConnectionStats of(WebSocketSession session) {
+        Object stats = session.getAttributes().get(ATTRIBUTE);
+        return stats instanceof ConnectionStats s ? s : null;
+    }
+
+    /** Record one round-trip sample, in milliseconds. */
+    public synchronized void recordRtt(double sampleMs) {
+        if (sampleMs < 0) return;
+        if (smoothedRttMs < 0) {
+            smoothedRttMs = sampleMs;
+            jitterMs = sampleMs / 2;
+        } else {
+            jitterMs += JITTER_GAIN * (Math.abs(smoothedRttMs - sampleMs) - jitterMs);
+            smoothedRttMs += RTT_GAIN * (sampleMs - smoothedRttMs);
+        }
+        samples++;
+    }
+
+    /**
+     * Record a clock sample: the client stamped {@code clientSentMs} on a ping that reached us at
+     * {@code serverReceivedMs}. Assuming the one-way delay is half the smoothed RTT, the client's
+     * clock is behind ours by {@code serverReceivedMs - (clientSentMs + rtt / 2)}.
+     *
+     * @return the smoothed offset to add to the client's clock to get server time
+     */
+    public synchronized double recordClockSample(long clientSentMs, long serverReceivedMs) {
+        double oneWay = smoothedRttMs > 0 ? smoothedRttMs / 2 : 0;
+        double sample = serverReceivedMs - (clientSentMs + oneWay);
+        if (!hasOffset) {
+            clockOffsetMs = sample;
+            hasOffset = true;
+        } else {
+            clockOffsetMs += OFFSET_GAIN * (sample - clockOffsetMs);
+        }
+        return clockOffsetMs;
+    }
+
+    /** Smoothed RTT in milliseconds, or -1 before the first pong. */
+    public synchronized double getSmoothedRttMs() {
+        return smoothedRttMs;
+    }
+
+    public synchronized double getJitterMs() {
+        return jitterMs;
+    }
+
+    public synchronized double getClockOffsetMs() {
+        return clockOffsetMs;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public synchronized boolean hasRtt() {
+        return smoothedRttMs >= 0;
+    }
+
+    /** Nearest-rank percentile of an already sorted array; 0 when empty. */
+    static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /** RTT and jitter percentiles across the connections of one room. */
+    public record Summary(
+            int connections,
+            double rttP50Ms,
+            double rttP90Ms,
+            double rttP99Ms,
+            double rttMaxMs,
+            double jitterP50Ms,
+            double jitterP90Ms) {
+
+        static Summary of(double[] rtts, double[] jitters) {
+            Arrays.sort(rtts);
+            Arrays.sort(jitters);
+            return new Summary(
+                    rtts.length,
+                    percentile(rtts, 50),
+                    percentile(rtts, 90),
+                    percentile(rtts, 99),
+                    rtts.length == 0 ? 0 : rtts[rtts.length - 1],
+                    percentile(jitters, 50),
+                    percentile(jitters, 90));
+        }
+    }
+}
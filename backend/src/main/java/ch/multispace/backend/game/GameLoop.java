@@ -1,13 +1,28 @@
 package ch.multispace.backend.game;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Set;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /** GameLoop: ticks rooms and optionally prunes totally unused rooms to avoid memory leak. */
@@ -16,68 +31,213 @@ public class GameLoop {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GameLoop.class);
 
-    private static final Set<GameSession> rooms = ConcurrentHashMap.newKeySet();
+    /** Tick period; every room advances and broadcasts once per tick. */
+    static final long TICK_MILLIS = 16;
+
+    // keyed by room id so lookups and get-or-create are single atomic map operations
+    private static final Map<UUID, GameSession> rooms = new ConcurrentHashMap<>();
 
     // optionally remove rooms that have been empty for this many seconds
     private static final long CLEANUP_THRESHOLD_SECONDS = 60L * 30; // 30 minutes
 
+    // Intra-room parallelism for very large rooms; off unless configured, see ParallelPhases
+    @Value("${app.game.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${app.game.parallel.min-players:24}")
+    private int parallelMinPlayers = 24;
+
+    @Value("${app.game.parallel.min-projectiles:256}")
+    private int parallelMinProjectiles = 256;
+
+    // 0 = one worker per available core
+    @Value("${app.game.parallel.threads:0}")
+    private int parallelThreads;
+
+    private ParallelPhases parallelPhases;
+
+    // a thread of its own: the @Scheduled pool runs database refreshes that must not delay a tick
+    private ScheduledExecutorService ticker;
+
+    // set at shutdown: no new rooms or players, see RoomCheckpointService
+    private static volatile boolean draining;
+    private boolean suspended;
+
+    // how long each tick took, and by how much those over the tick period overran it
+    private final Timer tickTimer;
+    private final DistributionSummary tickOverruns;
+    // static like the registry: a room leaves it through unregisterRoom as well as the tick
+    private static final LongAdder roomsClosed = new LongAdder();
+
+    public GameLoop(MeterRegistry meterRegistry) {
+        this.tickTimer =
+                Timer.builder("game.tick")
+                        .description("Time to advance and broadcast every room once")
+                        .publishPercentileHistogram()
+                        .serviceLevelObjectives(Duration.ofMillis(TICK_MILLIS))
+                        .register(meterRegistry);
+        this.tickOverruns =
+                DistributionSummary.builder("game.tick.overrun")
+                        .description("Time by which a tick overran the tick period")
+                        .baseUnit("milliseconds")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+        FunctionCounter.builder("game.rooms.closed", GameLoop.class, _ -> roomsClosed.sum())
+                .description("Rooms removed from the loop, closed or idle")
+                .register(meterRegistry);
+        // a room without connections is not simulated (see GameSession.update): hibernated
+        Gauge.builder("game.rooms", () -> countRooms(true))
+                .description("Open rooms on this node")
+                .tag("state", "active")
+                .register(meterRegistry);
+        Gauge.builder("game.rooms", () -> countRooms(false))
+                .description("Open rooms on this node")
+                .tag("state", "hibernated")
+                .register(meterRegistry);
+        Gauge.builder(
+                        "game.players.connected",
+                        () ->
+                                rooms.values().stream()
+                                        .mapToInt(GameSession::getConnectionCount)
+                                        .sum())
+                .description("Gameplay WebSocket connections on this node")
+                .register(meterRegistry);
+    }
+
+    private static long countRooms(boolean connected) {
+        return rooms.values().stream()
+                .filter(room -> !room.isClosed())
+                .filter(room -> (room.getConnectionCount() > 0) == connected)
+                .count();
+    }
+
+    @PostConstruct
+    void start() {
+        if (parallelEnabled) {
+            int threads =
+                    parallelThreads > 0
+                            ? parallelThreads
+                            : Runtime.getRuntime().availableProcessors();
+            parallelPhases =
+                    new ParallelPhases(
+                            new ForkJoinPool(threads), parallelMinPlayers, parallelMinProjectiles);
+            LOGGER.info(
+                    "Parallel room phases on {} threads for rooms of {}+ players or {}+ projectiles",
+                    threads,
+                    parallelMinPlayers,
+                    parallelMinProjectiles);
+        }
+        ticker =
+                Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("game-tick").daemon().factory());
+        ticker.scheduleAtFixedRate(
+                this::tickLogged, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // an exception escaping a scheduleAtFixedRate task cancels every later run
+    private void tickLogged() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            LOGGER.error("Game tick failed", e);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        if (parallelPhases != null) parallelPhases.shutdown();
+    }
+
     public static void registerRoom(GameSession r) {
-        rooms.add(r);
+        rooms.putIfAbsent(r.getRoomId(), r);
     }
 
     public static void unregisterRoom(GameSession r) {
-        rooms.remove(r);
+        if (rooms.remove(r.getRoomId(), r)) roomsClosed.increment();
+    }
+
+    /** Remove every room matching {@code filter}; returns how many left the map. */
+    private static int removeRooms(Predicate<GameSession> filter) {
+        int removed = 0;
+        for (GameSession room : rooms.values()) {
+            if (filter.test(room) && rooms.remove(room.getRoomId(), room)) removed++;
+        }
+        roomsClosed.add(removed);
+        return removed;
+    }
+
+    /** Stop admitting players to rooms; existing rooms keep running until suspended. */
+    public static void startDraining() {
+        draining = true;
+    }
+
+    public static boolean isDraining() {
+        return draining;
+    }
+
+    /** Stop ticking. Returns once any tick in progress has finished, so room state is quiet. */
+    public synchronized void suspend() {
+        suspended = true;
+    }
+
+    /** Every registered room, open or not. */
+    static Collection<GameSession> allRooms() {
+        return List.copyOf(rooms.values());
     }
 
-    @Scheduled(fixedRate = 16)
-    public void tick() {
-        double dt = 0.016;
+    public synchronized void tick() {
+        if (suspended) return;
+        long start = System.nanoTime();
+        double dt = TICK_MILLIS / 1000.0;
 
         // 1. Remove fully closed rooms
-        if (rooms.removeIf(GameSession::isClosed)) {
-            LOGGER.info("Removed {} closed rooms", rooms.size());
+        int closed = removeRooms(GameSession::isClosed);
+        if (closed > 0) {
+            LOGGER.info("Removed {} closed rooms", closed);
         }
 
         // 2. Optional cleanup: remove rooms idle for too long
-        if (rooms.removeIf(
-                room ->
-                        room.isEmpty()
-                                && Duration.between(room.getLastActiveAt(), Instant.now())
-                                                .getSeconds()
-                                        > CLEANUP_THRESHOLD_SECONDS)) {
-            LOGGER.info("Removed {} idle rooms", rooms.size());
+        int idle =
+                removeRooms(
+                        room ->
+                                room.isEmpty()
+                                        && Duration.between(room.getLastActiveAt(), Instant.now())
+                                                        .getSeconds()
+                                                > CLEANUP_THRESHOLD_SECONDS);
+        if (idle > 0) {
+            LOGGER.info("Removed {} idle rooms", idle);
         }
 
         // 3. Update active rooms
-        for (GameSession r : rooms) {
+        for (GameSession r : rooms.values()) {
             if (!r.isClosed()) {
-                r.update(dt);
+                r.update(dt, parallelPhases);
                 LOGGER.debug("Updated room {}", r.getRoomId());
             }
         }
-    }
 
-    /** Finds a room with free space or creates a new one. */
-    public static GameSession findAvailableRoom() {
-        return rooms.stream()
-                .filter(r -> !r.isFull())
-                .findFirst()
-                .orElseGet(
-                        () -> {
-                            GameSession newRoom = new GameSession();
-                            return newRoom;
-                        });
+        long elapsed = System.nanoTime() - start;
+        tickTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        long overrun = elapsed - TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        if (overrun > 0) tickOverruns.record(overrun / 1_000_000.0);
     }
 
     /** Find a room by ID */
     public static GameSession getRoom(UUID roomId) {
-        return rooms.stream().filter(r -> r.getRoomId().equals(roomId)).findFirst().orElse(null);
+        return rooms.get(roomId);
     }
 
-    /** Get an existing room by id or create a new one with that id. */
-    public static GameSession getOrCreate(UUID roomId) {
-        GameSession existing = getRoom(roomId);
-        if (existing != null) return existing;
-        return new GameSession(roomId);
+    /**
+     * Get an existing room by id or create a new one with that id. Atomic, so two players
+     * connecting to the same new room at once end up in the same instance.
+     */
+    public static GameSession getOrCreate(UUID roomId, int maxPlayers) {
+        return rooms.compute(
+                roomId,
+                (id, existing) ->
+                        existing != null && !existing.isClosed()
+                                ? existing
+                                : new GameSession(id, maxPlayers));
     }
 }
@@ -2,31 +2,39 @@ package ch.multispace.backend.game;
 
 import ch.multispace.backend.model.GameRoom;
 import ch.multispace.backend.model.PlayerEntity;
+import ch.multispace.backend.repositories.GameResultRepository;
 import ch.multispace.backend.repositories.GameRoomRepository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class GameRoomService {
 
+    /** A finished match whose row is kept as history; never listed, joined or deleted. */
+    public static final String STATUS_ENDED = "ENDED";
+
     private final GameRoomRepository gameRoomRepository;
+    private final GameResultRepository gameResultRepository;
 
-    /** List open rooms (not full) */
-    public List<GameRoom> listOpenRooms() {
-        return gameRoomRepository.findByStatus("WAITING");
+    /** Every room not yet ended; what {@link RoomDirectory} loads and resyncs from */
+    public List<GameRoom> listedRooms() {
+        return gameRoomRepository.findListed();
     }
 
-    /** Create a new room */
-    public GameRoom createRoom(PlayerEntity host, String roomName) {
+    /** Create a new room; a null or out-of-range capacity is clamped, see GameSession */
+    public GameRoom createRoom(PlayerEntity host, String roomName, Integer maxPlayers) {
         GameRoom session = new GameRoom();
         session.setHost(host);
         session.setRoomName(roomName);
         session.setStatus("WAITING");
-        session.setMaxPlayer(GameSession.MAX_PLAYERS);
+        session.setMaxPlayer(GameSession.clampMaxPlayers(maxPlayers));
         return gameRoomRepository.save(session);
     }
 
@@ -35,29 +43,82 @@ public class GameRoomService {
         return gameRoomRepository.findById(id);
     }
 
-    /** Delete a room */
+    /** Delete a room; results already recorded for it are kept, without the link */
+    @Transactional
     public void deleteRoom(GameRoom session) {
+        gameResultRepository.detachFromRoom(session);
         gameRoomRepository.delete(session);
     }
 
-    /** Join a room */
-    public Optional<GameRoom> joinRoom(UUID roomId, PlayerEntity player) {
-        Optional<GameRoom> opt = gameRoomRepository.findByRoomId(roomId);
-        if (opt.isEmpty()) return Optional.empty();
-
-        GameRoom session = opt.get();
-        if (session.getPlayerIds().size() >= 2) return Optional.empty(); // max players
-        if (!session.getPlayerIds().contains(player.getId())) {
-            session.getPlayerIds().add(player.getId());
-            // If room now full, mark as STARTED; otherwise keep as WAITING
-            if (session.getPlayerIds().size() >= GameSession.MAX_PLAYERS) {
-                session.setStatus("STARTED");
-            } else if (session.getStatus() == null || session.getStatus().isBlank()) {
-                session.setStatus("WAITING");
-            }
-            gameRoomRepository.save(session);
+    /**
+     * Add a player to a room, if it has room for them. The room's row is locked for the duration,
+     * so concurrent joins are counted one after another and can never take it past {@code
+     * max_player}; the player is added with a single insert. On success the returned room carries
+     * its player list as of this join.
+     */
+    @Transactional
+    public JoinResult joinRoom(UUID roomId, PlayerEntity player) {
+        // rooms hold user ids: the ids the game and the write-behind remove on leave
+        UUID playerId = player.getUser().getId();
+        Optional<GameRoom> locked = gameRoomRepository.lockByRoomId(roomId);
+        if (locked.isEmpty()) return new JoinResult(JoinOutcome.NOT_FOUND, null);
+
+        GameRoom session = locked.get();
+        if (STATUS_ENDED.equals(session.getStatus())) {
+            return new JoinResult(JoinOutcome.ENDED, null);
+        }
+        if (gameRoomRepository.countPlayer(roomId, playerId) > 0) {
+            return new JoinResult(JoinOutcome.ALREADY_JOINED, withPlayers(session));
+        }
+        long players = gameRoomRepository.countPlayers(roomId);
+        int capacity = capacityOf(session);
+        if (players >= capacity) return new JoinResult(JoinOutcome.FULL, null);
+
+        gameRoomRepository.addPlayer(roomId, playerId);
+        // If room now full, mark as STARTED; otherwise keep as WAITING
+        if (players + 1 >= capacity) {
+            session.setStatus("STARTED");
+        } else if (session.getStatus() == null || session.getStatus().isBlank()) {
+            session.setStatus("WAITING");
         }
-        return Optional.of(session);
+        return new JoinResult(JoinOutcome.JOINED, withPlayers(session));
+    }
+
+    /**
+     * Lock a room for a change to its players; see {@link GameRoomRepository#lockByRoomId}. Must
+     * run in a transaction.
+     */
+    public Optional<GameRoom> lockRoom(UUID roomId) {
+        return gameRoomRepository.lockByRoomId(roomId);
+    }
+
+    /** Remove players from a room locked by {@link #lockRoom}; returns it with the players left. */
+    public GameRoom removePlayers(GameRoom room, Collection<UUID> playerIds) {
+        if (!playerIds.isEmpty()) gameRoomRepository.removePlayers(room.getRoomId(), playerIds);
+        return withPlayers(room);
+    }
+
+    // loaded after our own insert or delete, so it reads what is now in the table; loaded now,
+    // inside the transaction, so it can be read after it
+    private static GameRoom withPlayers(GameRoom room) {
+        Hibernate.initialize(room.getPlayerIds());
+        return room;
+    }
+
+    public enum JoinOutcome {
+        JOINED,
+        ALREADY_JOINED,
+        FULL,
+        ENDED,
+        NOT_FOUND
+    }
+
+    /** What a join did; {@code room} is set for {@code JOINED} and {@code ALREADY_JOINED}. */
+    public record JoinResult(JoinOutcome outcome, GameRoom room) {}
+
+    /** The room's persisted player cap, or the default for rows that predate the column */
+    public static int capacityOf(GameRoom room) {
+        return GameSession.clampMaxPlayers(room.getMaxPlayer());
     }
 
     /** Find a session by roomId */
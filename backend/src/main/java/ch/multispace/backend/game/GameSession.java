@@ -8,12 +8,19 @@ import ch.multispace.backend.model.Ufo;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 /**
  * GameSession: server-side authoritative game state for one multiplayer room. - players, invaders,
@@ -22,14 +29,19 @@ import org.springframework.web.socket.WebSocketSession;
  */
 public class GameSession {
     private final UUID id;
-    protected static final int MAX_PLAYERS = 2;
+    public static final int DEFAULT_MAX_PLAYERS = 2;
+    public static final int MAX_PLAYERS_LIMIT = 64;
+    private final int maxPlayers;
 
     private final Map<String, Player> players = new ConcurrentHashMap<>();
     private final Set<WebSocketSession> sessions =
             Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // per-connection snapshot cadence, adapted to each link's backlog, RTT and send failures
+    private final Map<WebSocketSession, SnapshotPacer> pacers = new ConcurrentHashMap<>();
 
-    // Use an ObjectMapper configured to serialize fields (works with Lombok or plain POJOs)
-    private final ObjectMapper mapper =
+    // Use an ObjectMapper configured to serialize fields (works with Lombok or plain POJOs).
+    // Shared by every room so they all reuse one warm serializer cache.
+    private static final ObjectMapper MAPPER =
             new ObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
 
     // Game entities
@@ -39,12 +51,20 @@ public class GameSession {
     private final List<ShieldCell> shields = Collections.synchronizedList(new ArrayList<>());
 
     private Ufo ufo = null;
+    private final Random random = new Random();
 
     // layout & tuning
     private static final int COLS = 11;
     private static final int ROWS = 5;
     private static final int WIDTH = 480;
     private static final int HEIGHT = 600; // now used for bounds
+    // every player stands on the same row, and every bunker sits in the same band, so projectiles
+    // outside those bands can skip the per-player and per-cell tests entirely
+    private static final double PLAYER_ROW_Y = 560;
+    private static final double PLAYER_ROW_H = 16;
+    private static final double SHIELD_BAND_Y = HEIGHT - 140;
+    private static final double SHIELD_BAND_H = 16;
+    private static final double FIRE_COOLDOWN_SECONDS = 0.5;
     private int invaderDir = 1;
     private double invaderSpeed = 14.0;
     private int level = 1;
@@ -53,7 +73,7 @@ public class GameSession {
     private double invaderShootAccumulator = 0.0;
     private double invaderShootInterval = 2.5; // seconds - decreases with level
     private double ufoAccumulator = 0.0;
-    private double nextUfoInSeconds = 20 + Math.random() * 20; // random 20-40s initial
+    private double nextUfoInSeconds = 20 + random.nextDouble() * 20; // random 20-40s initial
     private boolean gameOver = false;
 
     private boolean closed = false;
@@ -62,7 +82,14 @@ public class GameSession {
 
     // Keep last known scores per userId so we can persist even after players disconnect
     private final Map<String, Long> scoreSnapshot = new ConcurrentHashMap<>();
+    // enemies (invaders and UFOs) each player shot down, snapshotted alongside the score
+    private final Map<String, Integer> killSnapshot = new ConcurrentHashMap<>();
+    // taken by the one roomEnded call that records the final scores; scoresPersisted follows once
+    // RoomWriteBehind has written the ended room
+    private final AtomicBoolean scoresClaimed = new AtomicBoolean();
     private volatile boolean scoresPersisted = false;
+    // set once this room's state is safely in a shutdown checkpoint; see RoomCheckpointService
+    private volatile boolean checkpointed = false;
 
     // -------------------------
     // INIT
@@ -72,11 +99,28 @@ public class GameSession {
     }
 
     public GameSession(UUID id) {
+        this(id, DEFAULT_MAX_PLAYERS);
+    }
+
+    public GameSession(UUID id, int maxPlayers) {
+        this(id, maxPlayers, true);
+    }
+
+    // fresh = false leaves the board empty for readCheckpoint to fill
+    private GameSession(UUID id, int maxPlayers, boolean fresh) {
         this.id = id;
-        initInvaders();
-        initShields();
-        adjustInvaderSpeed();
-        GameLoop.registerRoom(this);
+        this.maxPlayers = clampMaxPlayers(maxPlayers);
+        if (fresh) {
+            initInvaders();
+            initShields();
+            adjustInvaderSpeed();
+        }
+    }
+
+    /** Fix the invader fire and UFO rolls, so a test can replay the same match twice. */
+    void seed(long seed) {
+        random.setSeed(seed);
+        nextUfoInSeconds = 20 + random.nextDouble() * 20;
     }
 
     private void markActive() {
@@ -90,8 +134,22 @@ public class GameSession {
     // -------------------
     // Public helpers
     // -------------------
+    /** Room capacity within [1, MAX_PLAYERS_LIMIT]; null or out-of-range values are clamped. */
+    public static int clampMaxPlayers(Integer requested) {
+        if (requested == null) return DEFAULT_MAX_PLAYERS;
+        return Math.max(1, Math.min(MAX_PLAYERS_LIMIT, requested));
+    }
+
     public boolean isFull() {
-        return players.size() >= MAX_PLAYERS;
+        return players.size() >= maxPlayers;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public int getPlayerCount() {
+        return players.size();
     }
 
     public UUID getRoomId() {
@@ -102,6 +160,11 @@ public class GameSession {
         return closed;
     }
 
+    /** Open WebSocket connections to this room. */
+    public int getConnectionCount() {
+        return sessions.size();
+    }
+
     public boolean isEmpty() {
         return players.isEmpty() && sessions.isEmpty();
     }
@@ -110,10 +173,69 @@ public class GameSession {
         return scoresPersisted;
     }
 
+    /** True for the first caller only, which is the one to record this room's final scores. */
+    public boolean claimScores() {
+        return !scoresPersisted && scoresClaimed.compareAndSet(false, true);
+    }
+
+    /** The final scores are recorded, or on their way: the room has ended. */
+    public boolean isScoresClaimed() {
+        return scoresPersisted || scoresClaimed.get();
+    }
+
     public void markScoresPersisted() {
         this.scoresPersisted = true;
     }
 
+    public boolean isCheckpointed() {
+        return checkpointed;
+    }
+
+    void markCheckpointed() {
+        this.checkpointed = true;
+    }
+
+    /** Whether the given user holds a seat restored from a checkpoint that nobody has retaken. */
+    public boolean hasDetachedSeat(String userId) {
+        Player p = players.get(userId);
+        return p != null && p.session == null;
+    }
+
+    /** Smoothed RTT of the given player's connection in ms, or -1 if not yet measured. */
+    public double getPlayerRttMs(String userId) {
+        Player p = players.get(userId);
+        if (p == null || p.session == null) return -1;
+        ConnectionStats stats = ConnectionStats.of(p.session);
+        return stats != null ? stats.getSmoothedRttMs() : -1;
+    }
+
+    /** RTT and jitter percentiles across this room's connections that have answered a ping. */
+    public ConnectionStats.Summary getLatencySummary() {
+        List<ConnectionStats> measured = new ArrayList<>();
+        for (WebSocketSession s : sessions) {
+            ConnectionStats stats = ConnectionStats.of(s);
+            if (stats != null && stats.hasRtt()) measured.add(stats);
+        }
+        double[] rtts = new double[measured.size()];
+        double[] jitters = new double[measured.size()];
+        for (int i = 0; i < measured.size(); i++) {
+            rtts[i] = measured.get(i).getSmoothedRttMs();
+            jitters[i] = measured.get(i).getJitterMs();
+        }
+        return ConnectionStats.Summary.of(rtts, jitters);
+    }
+
+    /** Snapshots per second each connected player currently receives, by userId. */
+    public Map<String, Double> getSnapshotRates() {
+        Map<String, Double> rates = new HashMap<>();
+        for (Player p : players.values()) {
+            if (p.session == null) continue;
+            SnapshotPacer pacer = pacers.get(p.session);
+            if (pacer != null) rates.put(p.userId, pacer.getRateHz());
+        }
+        return rates;
+    }
+
     /** Return a copy of last known scores mapped by user UUID. */
     public Map<java.util.UUID, Long> getScoresSnapshotUuidMap() {
         Map<java.util.UUID, Long> out = new HashMap<>();
@@ -126,6 +248,28 @@ public class GameSession {
         return out;
     }
 
+    /** Enemies each player shot down, by user UUID, as of the last snapshot. */
+    public Map<UUID, Integer> getKillsSnapshotUuidMap() {
+        Map<UUID, Integer> out = new HashMap<>();
+        for (Map.Entry<String, Integer> e : killSnapshot.entrySet()) {
+            try {
+                out.put(UUID.fromString(e.getKey()), e.getValue());
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        return out;
+    }
+
+    /** The wave the room has reached, starting at 1. */
+    public int getLevel() {
+        return level;
+    }
+
+    private void snapshot(Player p) {
+        scoreSnapshot.put(p.userId, p.score);
+        killSnapshot.put(p.userId, p.kills);
+    }
+
     // -------------------------
     // ROOM LIFECYCLE
     // -------------------------
@@ -136,6 +280,7 @@ public class GameSession {
 
         players.clear();
         sessions.clear();
+        pacers.clear();
         invaders.clear();
         invaderBullets.clear();
         shields.clear();
@@ -145,13 +290,39 @@ public class GameSession {
     // -------------------------
     // PLAYER / SESSION MGMT
     // -------------------------
-    public synchronized void addPlayer(String userId, String username, WebSocketSession session) {
-        if (closed || isFull()) return;
+    /**
+     * Add a player under the room lock, so the capacity check and the insert cannot interleave with
+     * another join.
+     *
+     * @return false if the room is closed or already full
+     */
+    public synchronized boolean addPlayer(
+            String userId, String username, WebSocketSession session) {
+        if (closed) return false;
+
+        Player restored = players.get(userId);
+        if (restored != null && restored.session == null) {
+            // resuming a seat restored from a checkpoint: same ship, score and lives
+            restored.session = session;
+            sessions.add(session);
+            pacers.putIfAbsent(session, new SnapshotPacer());
+            markActive();
+            return true;
+        }
+        if (isFull()) return false;
 
         sessions.add(session);
-        players.putIfAbsent(
-                userId, new Player(userId, username, session, WIDTH / 2.0 + players.size() * 30));
+        pacers.putIfAbsent(session, new SnapshotPacer());
+        players.putIfAbsent(userId, new Player(userId, username, session, spawnX(players.size())));
         markActive();
+        return true;
+    }
+
+    /** Two-player rooms keep their side-by-side start; larger rooms spread across the width. */
+    private double spawnX(int slot) {
+        if (maxPlayers <= DEFAULT_MAX_PLAYERS) return WIDTH / 2.0 + slot * 30;
+        double lane = (WIDTH - 32 - Player.SHIP_WIDTH) / (double) maxPlayers;
+        return 16 + (slot + 0.5) * lane;
     }
 
     /**
@@ -166,10 +337,13 @@ public class GameSession {
         Player p = players.remove(userId);
         if (p == null) return false;
 
-        sessions.remove(p.session);
+        if (p.session != null) {
+            sessions.remove(p.session);
+            pacers.remove(p.session);
+        }
 
         // snapshot score before fully removing
-        scoreSnapshot.put(userId, p.score);
+        snapshot(p);
 
         markActive();
 
@@ -185,6 +359,7 @@ public class GameSession {
      */
     public synchronized String removeSession(WebSocketSession s) {
         sessions.remove(s);
+        pacers.remove(s);
 
         String removedUserId = null;
 
@@ -195,7 +370,7 @@ public class GameSession {
             if (p.session == s) {
                 removedUserId = e.getKey();
                 // snapshot score
-                scoreSnapshot.put(removedUserId, p.score);
+                snapshot(p);
                 it.remove();
                 break;
             }
@@ -229,19 +404,47 @@ public class GameSession {
     // UPDATE LOOP
     // -------------------------
     public void update(double dt) {
+        update(dt, null);
+    }
+
+    /**
+     * One tick. When {@code phases} is given and this room is large enough for it, projectile
+     * integration and collision detection are split across its pool; otherwise the whole tick runs
+     * on the calling thread.
+     */
+    public void update(double dt, ParallelPhases phases) {
         if (closed) return;
+        // a room restored from a checkpoint holds still until its first player is back
+        if (sessions.isEmpty()) return;
 
         if (gameOver) {
             broadcastState();
             return;
         }
 
+        boolean parallel =
+                phases != null && phases.appliesTo(players.size(), invaderBullets.size());
+
         updatePlayers(dt);
+        if (parallel) {
+            List<Player> shooters = new ArrayList<>(players.values());
+            phases.run(() -> shooters.parallelStream().forEach(p -> p.updateShot(dt)));
+        } else {
+            players.values().forEach(p -> p.updateShot(dt));
+        }
         updateInvaders(dt);
         updateInvaderShooting(dt);
-        updateInvaderBullets(dt);
+        if (parallel) {
+            updateInvaderBulletsParallel(dt, phases);
+        } else {
+            updateInvaderBullets(dt);
+        }
         updateUfo(dt);
-        handleCollisions();
+        if (parallel) {
+            handleCollisionsParallel(phases);
+        } else {
+            handleCollisions();
+        }
         checkPlayerLives();
 
         broadcastState();
@@ -258,10 +461,10 @@ public class GameSession {
 
             p.x = Math.max(16, Math.min(WIDTH - p.w - 16, p.x + vx * dt));
 
-            if (p.requestFire && p.canShoot) {
+            p.fireCooldown = Math.max(0, p.fireCooldown - dt);
+            if (p.requestFire && p.canShoot()) {
                 p.fire();
             }
-            p.updateShot(dt);
         }
     }
 
@@ -269,36 +472,43 @@ public class GameSession {
     // Invaders
     // --------------------
     private void updateInvaders(double dt) {
-        if (invaders.stream().noneMatch(i -> i.alive)) {
+        List<Invader> alive = new ArrayList<>(invaders.size());
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        synchronized (invaders) {
+            for (Invader i : invaders) {
+                if (!i.alive) continue;
+                alive.add(i);
+                minX = Math.min(minX, i.x);
+                maxX = Math.max(maxX, i.x + i.w);
+            }
+        }
+
+        if (alive.isEmpty()) {
             level++;
             adjustInvaderSpeed();
             initInvaders();
 
             invaderBullets.clear();
             ufo = null;
-            nextUfoInSeconds = 15 + Math.random() * 25;
+            nextUfoInSeconds = 15 + random.nextDouble() * 25;
             return;
         }
 
-        var alive = invaders.stream().filter(i -> i.alive).toList();
-        double minX = alive.stream().mapToDouble(i -> i.x).min().orElse(0);
-        double maxX = alive.stream().mapToDouble(i -> i.x + i.w).max().orElse(WIDTH);
-
         boolean stepDown =
                 (invaderDir > 0 && maxX + invaderSpeed * dt >= WIDTH - 16)
                         || (invaderDir < 0 && minX - invaderSpeed * dt <= 16);
 
-        if (stepDown) {
-            for (Invader i : alive) i.y += 14;
-            invaderDir *= -1;
-        } else {
-            for (Invader i : alive) i.x += invaderDir * invaderSpeed * dt;
+        boolean invaderReachedGround = false;
+        for (Invader i : alive) {
+            if (stepDown) i.y += 14;
+            else i.x += invaderDir * invaderSpeed * dt;
+            // Players stand at y ≈ 560 (see Player.y). If any invader bottom crosses this line, end
+            // game for all.
+            if (i.y + i.h >= PLAYER_ROW_Y) invaderReachedGround = true;
         }
+        if (stepDown) invaderDir *= -1;
 
-        // Check if any invader reached the ground (players' row)
-        // Players stand at y ≈ 560 (see Player.y). If any invader bottom crosses this line, end
-        // game for all.
-        boolean invaderReachedGround = alive.stream().anyMatch(i -> (i.y + i.h) >= 560);
         if (invaderReachedGround) {
             // Set all players to dead and flag game over
             for (Player p : players.values()) {
@@ -340,7 +550,7 @@ public class GameSession {
         }
         if (bottom.isEmpty()) return;
 
-        Invader shooter = new ArrayList<>(bottom.values()).get(new Random().nextInt(bottom.size()));
+        Invader shooter = new ArrayList<>(bottom.values()).get(random.nextInt(bottom.size()));
 
         invaderBullets.add(
                 new InvaderBullet(shooter.x + shooter.w / 2 - 1, shooter.y + shooter.h, 2, 8, 200));
@@ -354,6 +564,15 @@ public class GameSession {
                 });
     }
 
+    private void updateInvaderBulletsParallel(double dt, ParallelPhases phases) {
+        List<InvaderBullet> bullets;
+        synchronized (invaderBullets) {
+            bullets = new ArrayList<>(invaderBullets);
+        }
+        phases.run(() -> bullets.parallelStream().forEach(b -> b.y += b.vy * dt));
+        invaderBullets.removeIf(b -> b.y > HEIGHT + 50);
+    }
+
     // --------------------
     // Shields
     // --------------------
@@ -371,7 +590,7 @@ public class GameSession {
 
         for (int b = 0; b < bunkers; b++) {
             double baseX = margin + b * spacing - (bunkerWidthBlocks * blockSize) / 2.0;
-            double baseY = HEIGHT - 140;
+            double baseY = SHIELD_BAND_Y;
             for (int bx = 0; bx < bunkerWidthBlocks; bx++) {
                 for (int by = 0; by < bunkerHeightBlocks; by++) {
                     ShieldCell cell = new ShieldCell();
@@ -393,10 +612,10 @@ public class GameSession {
         ufoAccumulator += dt;
         if (ufo == null) {
             if (ufoAccumulator >= nextUfoInSeconds) {
-                boolean fromLeft = new Random().nextBoolean();
+                boolean fromLeft = random.nextBoolean();
                 ufo = new Ufo(fromLeft ? -60 : WIDTH + 60, 40, 48, 20, fromLeft ? 120 : -120, 200);
                 ufoAccumulator = 0;
-                nextUfoInSeconds = 25 + Math.random() * 30;
+                nextUfoInSeconds = 25 + random.nextDouble() * 30;
             }
         } else {
             ufo.x += ufo.vx * dt;
@@ -411,61 +630,45 @@ public class GameSession {
     // Collisions
     // --------------------
     private void handleCollisions() {
-        // Player shots hit invaders, UFO, shields
-        for (Player p : players.values()) {
+        double[] formation = formationBounds();
+
+        // Player shots hit invaders, UFO, shields; in userId order, so a contested invader goes to
+        // the same shooter on both paths
+        List<Player> ordered = playersInOrder();
+        for (Player p : ordered) {
             if (p.shot == null) continue;
-            Shot s = p.shot;
-            // check invaders
-            boolean broke = false;
-            synchronized (invaders) {
-                for (Invader inv : invaders) {
-                    if (!inv.alive) continue;
-                    if (rectOverlap(s.x, s.y, s.w, s.h, inv.x, inv.y, inv.w, inv.h)) {
-                        inv.alive = false;
-                        p.shot = null;
-                        p.score += 10L * Math.max(1, level);
-                        broke = true;
-                        break;
-                    }
+            if (hitsFormation(p.shot, formation)) {
+                Invader hit;
+                synchronized (invaders) {
+                    hit = firstInvaderHit(p.shot, invaders);
                 }
-            }
-            if (broke) continue;
-
-            // check UFO
-            if (ufo != null && rectOverlap(s.x, s.y, s.w, s.h, ufo.x, ufo.y, ufo.w, ufo.h)) {
-                p.shot = null;
-                p.score += ufo.scoreValue;
-                ufo = null;
-                continue;
-            }
-
-            // check shields
-            for (ShieldCell cell : shields) {
-                if (cell.getHp() <= 0) continue;
-                if (rectOverlap(
-                        s.x, s.y, s.w, s.h, cell.getX(), cell.getY(), cell.getW(), cell.getH())) {
-                    // damage shield
-                    cell.setHp(cell.getHp() - 1);
-                    p.shot = null;
-                    break;
+                if (hit != null) {
+                    killInvader(p, hit);
+                    continue;
                 }
             }
+            resolveShotAgainstUfoAndShields(p);
         }
 
         // Invader bullets hit players or shields
         List<InvaderBullet> removeBullets = new ArrayList<>();
+        // respawns wait for the end of the phase: every bullet is tested against where the players
+        // stood when it started, as in handleCollisionsParallel
+        List<Player> knockedBack = new ArrayList<>();
         synchronized (invaderBullets) {
             for (InvaderBullet b : invaderBullets) {
                 // players
-                for (Player p : players.values()) {
-                    if (rectOverlap(b.x, b.y, b.w, b.h, p.x, p.y, p.w, p.h)) {
-                        removeBullets.add(b);
-                        p.lives--;
-                        // optional respawn at center
-                        p.x = WIDTH / 2.0;
+                if (b.y < PLAYER_ROW_Y + PLAYER_ROW_H && b.y + b.h > PLAYER_ROW_Y) {
+                    for (Player p : ordered) {
+                        if (rectOverlap(b.x, b.y, b.w, b.h, p.x, p.y, p.w, p.h)) {
+                            removeBullets.add(b);
+                            p.lives--;
+                            knockedBack.add(p);
+                        }
                     }
                 }
                 // shields
+                if (!inShieldBand(b.y, b.h)) continue;
                 for (ShieldCell cell : shields) {
                     if (cell.getHp() <= 0) continue;
                     if (rectOverlap(
@@ -484,9 +687,202 @@ public class GameSession {
             }
             invaderBullets.removeAll(removeBullets);
         }
+        // optional respawn at center
+        knockedBack.forEach(p -> p.x = WIDTH / 2.0);
     }
 
-    private boolean rectOverlap(
+    /**
+     * Large-room variant of {@link #handleCollisions()}. Detection for every shot and every bullet
+     * runs in parallel against state nothing mutates meanwhile; the hits are then applied here, on
+     * the tick thread, players in userId order and bullets in list order. Where two shots claim the
+     * same invader the first in that order wins and the other is re-tested against what is still
+     * alive, which is exactly what the sequential pass would have done. Bullets are tested against
+     * player positions as they were at the start of the phase, so a player knocked back to the
+     * centre by one bullet is not hit again at the centre by another in the same tick.
+     */
+    private void handleCollisionsParallel(ParallelPhases phases) {
+        double[] formation = formationBounds();
+        List<Player> ordered = playersInOrder();
+        // plain copies: workers read these instead of the synchronized lists
+        List<Invader> formationSnapshot;
+        synchronized (invaders) {
+            formationSnapshot = new ArrayList<>(invaders);
+        }
+        List<Invader> claims =
+                phases.call(
+                        () ->
+                                ordered.parallelStream()
+                                        .map(
+                                                p -> {
+                                                    Shot s = p.shot;
+                                                    return s != null && hitsFormation(s, formation)
+                                                            ? firstInvaderHit(s, formationSnapshot)
+                                                            : null;
+                                                })
+                                        .toList());
+
+        for (int i = 0; i < ordered.size(); i++) {
+            Player p = ordered.get(i);
+            if (p.shot == null) continue;
+            Invader hit = claims.get(i);
+            if (hit != null && !hit.alive) {
+                // an earlier shooter got there first; the shot keeps flying through the gap
+                hit = firstInvaderHit(p.shot, formationSnapshot);
+            }
+            if (hit != null) {
+                killInvader(p, hit);
+                continue;
+            }
+            resolveShotAgainstUfoAndShields(p);
+        }
+
+        List<InvaderBullet> bullets;
+        synchronized (invaderBullets) {
+            bullets = new ArrayList<>(invaderBullets);
+        }
+        List<ShieldCell> cells;
+        synchronized (shields) {
+            cells = new ArrayList<>(shields);
+        }
+        List<BulletHits> hits =
+                phases.call(
+                        () ->
+                                bullets.parallelStream()
+                                        .map(b -> detectBulletHits(b, ordered, cells))
+                                        .toList());
+
+        List<InvaderBullet> removeBullets = new ArrayList<>();
+        for (int i = 0; i < bullets.size(); i++) {
+            BulletHits h = hits.get(i);
+            if (h == null) continue;
+            boolean absorbed = false;
+            for (int pi : h.players()) {
+                Player p = ordered.get(pi);
+                p.lives--;
+                p.x = WIDTH / 2.0;
+                absorbed = true;
+            }
+            for (int ci : h.cells()) {
+                ShieldCell cell = cells.get(ci);
+                // an earlier bullet may have finished this cell off during the merge
+                if (cell.getHp() <= 0) continue;
+                cell.setHp(cell.getHp() - 1);
+                absorbed = true;
+            }
+            if (absorbed) removeBullets.add(bullets.get(i));
+        }
+        invaderBullets.removeAll(removeBullets);
+    }
+
+    /** Which players and live shield cells a bullet overlaps, or null when it overlaps nothing. */
+    private static BulletHits detectBulletHits(
+            InvaderBullet b, List<Player> ordered, List<ShieldCell> cells) {
+        int[] hitPlayers = new int[0];
+        if (b.y < PLAYER_ROW_Y + PLAYER_ROW_H && b.y + b.h > PLAYER_ROW_Y) {
+            hitPlayers =
+                    IntStream.range(0, ordered.size())
+                            .filter(
+                                    i -> {
+                                        Player p = ordered.get(i);
+                                        return rectOverlap(b.x, b.y, b.w, b.h, p.x, p.y, p.w, p.h);
+                                    })
+                            .toArray();
+        }
+        int[] hitCells = new int[0];
+        if (inShieldBand(b.y, b.h)) {
+            hitCells =
+                    IntStream.range(0, cells.size())
+                            .filter(
+                                    i -> {
+                                        ShieldCell c = cells.get(i);
+                                        return c.getHp() > 0
+                                                && rectOverlap(
+                                                        b.x, b.y, b.w, b.h, c.getX(), c.getY(),
+                                                        c.getW(), c.getH());
+                                    })
+                            .toArray();
+        }
+        if (hitPlayers.length == 0 && hitCells.length == 0) return null;
+        return new BulletHits(hitPlayers, hitCells);
+    }
+
+    private record BulletHits(int[] players, int[] cells) {}
+
+    /** Bounding box of the live formation as {minX, minY, maxX, maxY}. */
+    private double[] formationBounds() {
+        double fMinX = Double.MAX_VALUE, fMinY = Double.MAX_VALUE;
+        double fMaxX = -Double.MAX_VALUE, fMaxY = -Double.MAX_VALUE;
+        synchronized (invaders) {
+            for (Invader inv : invaders) {
+                if (!inv.alive) continue;
+                fMinX = Math.min(fMinX, inv.x);
+                fMinY = Math.min(fMinY, inv.y);
+                fMaxX = Math.max(fMaxX, inv.x + inv.w);
+                fMaxY = Math.max(fMaxY, inv.y + inv.h);
+            }
+        }
+        return new double[] {fMinX, fMinY, fMaxX, fMaxY};
+    }
+
+    // shots outside the formation's bounding box cannot hit any invader
+    private static boolean hitsFormation(Shot s, double[] f) {
+        return rectOverlap(s.x, s.y, s.w, s.h, f[0], f[1], f[2] - f[0], f[3] - f[1]);
+    }
+
+    /** First live invader in formation order that the shot overlaps, or null. Reads only. */
+    private static Invader firstInvaderHit(Shot s, List<Invader> formation) {
+        for (Invader inv : formation) {
+            if (inv.alive && rectOverlap(s.x, s.y, s.w, s.h, inv.x, inv.y, inv.w, inv.h)) {
+                return inv;
+            }
+        }
+        return null;
+    }
+
+    private void killInvader(Player p, Invader inv) {
+        inv.alive = false;
+        p.shot = null;
+        p.score += 10L * Math.max(1, level);
+        p.kills++;
+    }
+
+    private void resolveShotAgainstUfoAndShields(Player p) {
+        Shot s = p.shot;
+        // check UFO
+        if (ufo != null && rectOverlap(s.x, s.y, s.w, s.h, ufo.x, ufo.y, ufo.w, ufo.h)) {
+            p.shot = null;
+            p.score += ufo.scoreValue;
+            p.kills++;
+            ufo = null;
+            return;
+        }
+
+        // check shields
+        if (!inShieldBand(s.y, s.h)) return;
+        for (ShieldCell cell : shields) {
+            if (cell.getHp() <= 0) continue;
+            if (rectOverlap(
+                    s.x, s.y, s.w, s.h, cell.getX(), cell.getY(), cell.getW(), cell.getH())) {
+                // damage shield
+                cell.setHp(cell.getHp() - 1);
+                p.shot = null;
+                break;
+            }
+        }
+    }
+
+    /** Players in a fixed order, so merging parallel results never depends on map iteration. */
+    private List<Player> playersInOrder() {
+        List<Player> ordered = new ArrayList<>(players.values());
+        ordered.sort(Comparator.comparing(p -> p.userId));
+        return ordered;
+    }
+
+    private static boolean inShieldBand(double y, double h) {
+        return y < SHIELD_BAND_Y + SHIELD_BAND_H && y + h > SHIELD_BAND_Y;
+    }
+
+    private static boolean rectOverlap(
             double ax,
             double ay,
             double aw,
@@ -499,9 +895,10 @@ public class GameSession {
     }
 
     private void checkPlayerLives() {
-        if (players.values().stream().noneMatch(p -> p.lives > 0)) {
-            gameOver = true;
+        for (Player p : players.values()) {
+            if (p.lives > 0) return;
         }
+        gameOver = true;
     }
 
     // --------------------
@@ -510,49 +907,82 @@ public class GameSession {
     private void broadcastState() {
         if (sessions.isEmpty()) return;
 
+        // keep score snapshot updated, whether or not anyone gets a frame this tick
+        for (Player p : players.values()) {
+            snapshot(p);
+        }
+
+        List<WebSocketSession> due = new ArrayList<>();
+        for (WebSocketSession s : sessions) {
+            if (!s.isOpen()) continue;
+            SnapshotPacer pacer = pacers.get(s);
+            if (pacer == null || pacer.isDue(bufferedBytes(s), rttMs(s))) due.add(s);
+        }
+        if (due.isEmpty()) return;
+
+        TextMessage frame;
         try {
-            Map<String, Object> state = new HashMap<>();
+            frame = new TextMessage(MAPPER.writeValueAsString(buildStateMessage()));
+        } catch (IOException _) {
+            return;
+        }
 
-            // Players
-            List<Map<String, Object>> playersList = new ArrayList<>();
-            for (Player p : players.values()) {
-                Map<String, Object> pd = new HashMap<>();
-                pd.put("userId", p.userId);
-                pd.put("username", p.username);
-                pd.put("x", p.x);
-                pd.put("y", p.y);
-                pd.put("w", p.w);
-                pd.put("h", p.h);
-                pd.put("score", p.score);
-                pd.put("lives", p.lives);
-                pd.put("shot", p.shot); // can be null
-                playersList.add(pd);
-
-                // keep score snapshot updated
-                scoreSnapshot.put(p.userId, p.score);
+        int bytes = frame.getPayloadLength();
+        for (WebSocketSession s : due) {
+            try {
+                s.sendMessage(frame);
+                GameTraffic.snapshotSent(bytes);
+            } catch (IOException | IllegalStateException | SessionLimitExceededException _) {
+                // a session over its buffer limit has been closed by the decorator already
+                GameTraffic.sendFailed();
+                SnapshotPacer pacer = pacers.get(s);
+                if (pacer != null) pacer.onSendFailure();
             }
+        }
+    }
 
-            state.put("players", playersList);
-            state.put("invaders", invaders);
-            state.put("invaderBullets", invaderBullets);
-            state.put("shields", shields);
-            state.put("ufo", ufo); // can be null
-            state.put("level", level);
-            state.put("gameOver", gameOver);
+    private Map<String, Object> buildStateMessage() {
+        Map<String, Object> state = new HashMap<>();
 
-            Map<String, Object> msgMap = new HashMap<>();
-            msgMap.put("type", "state");
-            msgMap.put("payload", state);
+        // Players
+        List<Map<String, Object>> playersList = new ArrayList<>();
+        for (Player p : players.values()) {
+            Map<String, Object> pd = new HashMap<>();
+            pd.put("userId", p.userId);
+            pd.put("username", p.username);
+            pd.put("x", p.x);
+            pd.put("y", p.y);
+            pd.put("w", p.w);
+            pd.put("h", p.h);
+            pd.put("score", p.score);
+            pd.put("lives", p.lives);
+            pd.put("shot", p.shot); // can be null
+            playersList.add(pd);
+        }
 
-            String msg = mapper.writeValueAsString(msgMap);
+        state.put("players", playersList);
+        state.put("invaders", invaders);
+        state.put("invaderBullets", invaderBullets);
+        state.put("shields", shields);
+        state.put("ufo", ufo); // can be null
+        state.put("level", level);
+        state.put("gameOver", gameOver);
+        // lets clients place the frame on the server timeline (see ConnectionStats)
+        state.put("serverTime", System.currentTimeMillis());
+
+        Map<String, Object> msgMap = new HashMap<>();
+        msgMap.put("type", "state");
+        msgMap.put("payload", state);
+        return msgMap;
+    }
 
-            for (WebSocketSession s : sessions) {
-                if (s.isOpen()) s.sendMessage(new TextMessage(msg));
-            }
+    private static long bufferedBytes(WebSocketSession s) {
+        return s instanceof ConcurrentWebSocketSessionDecorator d ? d.getBufferSize() : 0;
+    }
 
-        } catch (IOException _) {
-            // No code
-        }
+    private static double rttMs(WebSocketSession s) {
+        ConnectionStats stats = ConnectionStats.of(s);
+        return stats != null ? stats.getSmoothedRttMs() : -1;
     }
 
     // --------------------
@@ -573,24 +1003,238 @@ public class GameSession {
         }
     }
 
+    // --------------------
+    // Checkpoint / restore
+    // --------------------
+    /** Copy every seated player's live score into the snapshot persisted when the room ends. */
+    public void snapshotScores() {
+        for (Player p : players.values()) {
+            snapshot(p);
+        }
+    }
+
+    /**
+     * Give up restored seats whose players did not come back; their scores stay in the snapshot.
+     * Closes the room if that leaves it empty.
+     *
+     * @return the number of seats dropped
+     */
+    public synchronized int dropDetachedSeats() {
+        int dropped = 0;
+        Iterator<Player> it = players.values().iterator();
+        while (it.hasNext()) {
+            Player p = it.next();
+            if (p.session != null) continue;
+            snapshot(p);
+            it.remove();
+            dropped++;
+        }
+        if (dropped > 0 && isEmpty()) closeRoom();
+        return dropped;
+    }
+
+    /**
+     * Write the simulation state - not the connections - in a compact binary form. Positions are
+     * stored as floats; a restored frame is off by well under a pixel.
+     */
+    synchronized void writeCheckpoint(DataOutput out) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        out.writeByte(maxPlayers);
+        out.writeShort(level);
+        out.writeBoolean(gameOver);
+        out.writeBoolean(scoresPersisted);
+        out.writeByte(invaderDir);
+        out.writeFloat((float) invaderSpeed);
+        out.writeFloat((float) invaderShootAccumulator);
+        out.writeFloat((float) invaderShootInterval);
+        out.writeFloat((float) ufoAccumulator);
+        out.writeFloat((float) nextUfoInSeconds);
+
+        List<Player> seated = new ArrayList<>(players.values());
+        out.writeByte(seated.size());
+        for (Player p : seated) {
+            writeString(out, p.userId);
+            writeString(out, p.username != null ? p.username : "");
+            out.writeFloat((float) p.x);
+            out.writeFloat((float) p.fireCooldown);
+            out.writeLong(p.score);
+            out.writeInt(p.kills);
+            out.writeByte(p.lives);
+            out.writeBoolean(p.shot != null);
+            if (p.shot != null) {
+                writeBox(out, p.shot.x, p.shot.y, p.shot.w, p.shot.h);
+                out.writeFloat((float) p.shot.vy);
+            }
+        }
+
+        Map<String, Long> scores = new HashMap<>(scoreSnapshot);
+        out.writeShort(scores.size());
+        for (Map.Entry<String, Long> e : scores.entrySet()) {
+            writeString(out, e.getKey());
+            out.writeLong(e.getValue());
+            out.writeInt(killSnapshot.getOrDefault(e.getKey(), 0));
+        }
+
+        synchronized (invaders) {
+            out.writeShort(invaders.size());
+            for (Invader inv : invaders) {
+                writeBox(out, inv.x, inv.y, inv.w, inv.h);
+                out.writeByte(inv.type);
+                out.writeBoolean(inv.alive);
+            }
+        }
+        synchronized (invaderBullets) {
+            out.writeShort(invaderBullets.size());
+            for (InvaderBullet b : invaderBullets) {
+                writeBox(out, b.x, b.y, b.w, b.h);
+                out.writeFloat((float) b.vy);
+            }
+        }
+        synchronized (shields) {
+            out.writeShort(shields.size());
+            for (ShieldCell c : shields) {
+                writeBox(out, c.getX(), c.getY(), c.getW(), c.getH());
+                out.writeByte(c.getHp());
+            }
+        }
+        out.writeBoolean(ufo != null);
+        if (ufo != null) {
+            writeBox(out, ufo.x, ufo.y, ufo.w, ufo.h);
+            out.writeFloat((float) ufo.vx);
+            out.writeInt(ufo.scoreValue);
+        }
+    }
+
+    /**
+     * Rebuild a room written by {@link #writeCheckpoint}; every seat starts detached. Format 1
+     * predates kill counts, which then restore as zero.
+     */
+    static GameSession readCheckpoint(ByteBuffer in, short format) {
+        boolean hasKills = format >= 2;
+        UUID id = new UUID(in.getLong(), in.getLong());
+        GameSession room = new GameSession(id, Byte.toUnsignedInt(in.get()), false);
+        room.level = in.getShort();
+        room.gameOver = in.get() != 0;
+        room.scoresPersisted = in.get() != 0;
+        room.invaderDir = in.get();
+        room.invaderSpeed = in.getFloat();
+        room.invaderShootAccumulator = in.getFloat();
+        room.invaderShootInterval = in.getFloat();
+        room.ufoAccumulator = in.getFloat();
+        room.nextUfoInSeconds = in.getFloat();
+
+        int seated = Byte.toUnsignedInt(in.get());
+        for (int i = 0; i < seated; i++) {
+            Player p = new Player(readString(in), readString(in), null, in.getFloat());
+            p.fireCooldown = in.getFloat();
+            p.score = in.getLong();
+            if (hasKills) p.kills = in.getInt();
+            p.lives = in.get();
+            if (in.get() != 0) {
+                p.shot =
+                        new Shot(
+                                in.getFloat(),
+                                in.getFloat(),
+                                in.getFloat(),
+                                in.getFloat(),
+                                in.getFloat());
+            }
+            room.players.put(p.userId, p);
+        }
+
+        int scores = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < scores; i++) {
+            String userId = readString(in);
+            room.scoreSnapshot.put(userId, in.getLong());
+            room.killSnapshot.put(userId, hasKills ? in.getInt() : 0);
+        }
+
+        int invaderCount = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < invaderCount; i++) {
+            Invader inv =
+                    new Invader(
+                            in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat(), in.get());
+            inv.alive = in.get() != 0;
+            room.invaders.add(inv);
+        }
+        int bulletCount = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < bulletCount; i++) {
+            room.invaderBullets.add(
+                    new InvaderBullet(
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getFloat()));
+        }
+        int cellCount = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < cellCount; i++) {
+            ShieldCell cell = new ShieldCell();
+            cell.setX(in.getFloat());
+            cell.setY(in.getFloat());
+            cell.setW(in.getFloat());
+            cell.setH(in.getFloat());
+            cell.setHp(in.get());
+            room.shields.add(cell);
+        }
+        if (in.get() != 0) {
+            room.ufo =
+                    new Ufo(
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getFloat(),
+                            in.getInt());
+        }
+        return room;
+    }
+
+    // length-prefixed UTF-8; read back by readString from a plain buffer
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBox(DataOutput out, double x, double y, double w, double h)
+            throws IOException {
+        out.writeFloat((float) x);
+        out.writeFloat((float) y);
+        out.writeFloat((float) w);
+        out.writeFloat((float) h);
+    }
+
     // --------------------
     // Helper classes
     // --------------------
     private static class Player {
+        static final double SHIP_WIDTH = 32;
+
         final String userId;
         final String username;
-        final WebSocketSession session;
+        // null while the seat was restored from a checkpoint and its player has not reconnected
+        volatile WebSocketSession session;
         double x;
-        double y = 560;
-        double w = 32;
-        double h = 16;
+        double y = PLAYER_ROW_Y;
+        double w = SHIP_WIDTH;
+        double h = PLAYER_ROW_H;
         double speed = 180;
         boolean inputLeft;
         boolean inputRight;
         boolean requestFire;
-        boolean canShoot = true;
+        // seconds until the next shot is allowed; counted down by the tick, not a timer thread
+        double fireCooldown = 0;
         Shot shot;
         long score = 0;
+        int kills = 0;
         int lives = 3;
 
         Player(String userId, String username, WebSocketSession session, double x) {
@@ -600,21 +1244,15 @@ public class GameSession {
             this.x = x;
         }
 
+        boolean canShoot() {
+            return fireCooldown <= 0;
+        }
+
         void fire() {
-            if (!canShoot) return;
+            if (!canShoot()) return;
             shot = new Shot(x + w / 2 - 1, y - 8, 2, 8, -360.0);
-            canShoot = false;
+            fireCooldown = FIRE_COOLDOWN_SECONDS;
             requestFire = false;
-            // re-enable shooting after 500 ms
-            new Timer()
-                    .schedule(
-                            new TimerTask() {
-                                @Override
-                                public void run() {
-                                    canShoot = true;
-                                }
-                            },
-                            500);
         }
 
         void updateShot(double dt) {
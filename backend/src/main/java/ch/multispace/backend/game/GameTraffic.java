@@ -0,0 +1,47 @@
+package ch.multispace.backend.game;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of gameplay WebSocket traffic on this node, for the metrics endpoint. Rooms are
+ * not beans (see {@link GameLoop}), so like the room registry these are static. Each count is one
+ * {@link LongAdder} increment, cheap enough to take on every frame.
+ */
+public final class GameTraffic {
+
+    private static final LongAdder snapshotsSent = new LongAdder();
+    private static final LongAdder snapshotBytes = new LongAdder();
+    private static final LongAdder sendFailures = new LongAdder();
+    private static final LongAdder inputsReceived = new LongAdder();
+
+    private GameTraffic() {}
+
+    static void snapshotSent(int bytes) {
+        snapshotsSent.increment();
+        snapshotBytes.add(bytes);
+    }
+
+    static void sendFailed() {
+        sendFailures.increment();
+    }
+
+    public static void inputReceived() {
+        inputsReceived.increment();
+    }
+
+    public static long snapshotsSent() {
+        return snapshotsSent.sum();
+    }
+
+    public static long snapshotBytes() {
+        return snapshotBytes.sum();
+    }
+
+    public static long sendFailures() {
+        return sendFailures.sum();
+    }
+
+    public static long inputsReceived() {
+        return inputsReceived.sum();
+    }
+}
@@ -0,0 +1,174 @@
+package ch.multispace.backend.game;
+
+import ch.multispace.backend.cluster.RoomRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Quick-play matchmaking. Connections that did not ask for a specific room are queued, and a single
+ * dedicated matcher thread drains the queue in batches and seats each player in a quick-play room.
+ * Because only the matcher thread ever picks quick-play rooms, two simultaneous connects can no
+ * longer both pick the same last free seat, and the capacity check happens inside {@link
+ * GameSession#addPlayer}'s lock rather than before it.
+ *
+ * <p>Consecutive tickets in a batch fill the same room, so players who queued together play
+ * together. A room that filled up is offered again once a player leaves it ({@link #seatFreed}).
+ * Every quick-play room gets an id this node owns ({@link RoomRouter}), so its game runs where its
+ * players connected. Time spent in the queue is recorded in a histogram.
+ */
+@Service
+public class MatchmakingService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatchmakingService.class);
+
+    private static final int MAX_BATCH = 512;
+
+    private final RoomRouter roomRouter;
+    private final BlockingQueue<Ticket> queue = new LinkedBlockingQueue<>();
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    // Quick-play rooms that may still have free seats, and those that filled up. Only touched by
+    // the matcher thread; a room leaves fullRooms when seatFreed reports it, open or closed.
+    private final Deque<GameSession> openRooms = new ArrayDeque<>();
+    private final Set<GameSession> fullRooms = new HashSet<>();
+
+    // rooms a player left, handed from the WebSocket threads to the matcher
+    private final Queue<GameSession> freedRooms = new ConcurrentLinkedQueue<>();
+
+    private Thread matcher;
+    private volatile boolean running;
+
+    public MatchmakingService(RoomRouter roomRouter) {
+        this.roomRouter = roomRouter;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        matcher = Thread.ofPlatform().name("matchmaker").daemon().start(this::matchLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        matcher.interrupt();
+    }
+
+    /**
+     * Queue a player for quick play. The returned future completes on the matcher thread once the
+     * player has been added to a room, or with null if the connection closed while waiting.
+     */
+    public CompletableFuture<GameSession> enqueue(
+            String userId, String username, WebSocketSession session) {
+        Ticket ticket = new Ticket(userId, username, session, System.nanoTime());
+        queue.add(ticket);
+        return ticket.result;
+    }
+
+    /**
+     * A player left {@code room}. If it is a quick-play room that had filled up and is still open,
+     * the matcher seats new players in it again.
+     */
+    public void seatFreed(GameSession room) {
+        freedRooms.add(room);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public LatencyHistogram.Snapshot getWaitTimes() {
+        return waitTimes.snapshot();
+    }
+
+    private void matchLoop() {
+        List<Ticket> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                assign(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Matchmaking batch failed", e);
+                batch.forEach(t -> t.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void assign(List<Ticket> batch) {
+        for (GameSession room; (room = freedRooms.poll()) != null; ) {
+            if (fullRooms.remove(room) && !room.isClosed()) openRooms.addLast(room);
+        }
+        for (Ticket ticket : batch) {
+            if (!ticket.session.isOpen()) {
+                ticket.result.complete(null);
+                continue;
+            }
+            GameSession room = seat(ticket);
+            waitTimes.recordNanos(System.nanoTime() - ticket.enqueuedAtNanos);
+            ticket.result.complete(room);
+        }
+        LOGGER.debug("Matched {} players, {} still queued", batch.size(), queue.size());
+    }
+
+    /** Seat the ticket in the oldest quick-play room with space, opening a new one if needed. */
+    private GameSession seat(Ticket ticket) {
+        while (true) {
+            GameSession room = openRooms.peekFirst();
+            if (room == null) {
+                room = new GameSession(localRoomId());
+                GameLoop.registerRoom(room);
+                openRooms.addLast(room);
+            }
+            if (room.addPlayer(ticket.userId, ticket.username, ticket.session)) {
+                if (room.isFull()) fullRooms.add(openRooms.pollFirst());
+                return room;
+            }
+            // closed or filled since we last looked
+            openRooms.pollFirst();
+            if (!room.isClosed()) fullRooms.add(room);
+        }
+    }
+
+    // with n nodes, n draws on average
+    private UUID localRoomId() {
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (!roomRouter.isLocal(id));
+        return id;
+    }
+
+    private record Ticket(
+            String userId,
+            String username,
+            WebSocketSession session,
+            long enqueuedAtNanos,
+            CompletableFuture<GameSession> result) {
+
+        Ticket(String userId, String username, WebSocketSession session, long enqueuedAtNanos) {
+            this(userId, username, session, enqueuedAtNanos, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ch.multispace.backend.game;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Opt-in fork/join execution of the heavy per-tick phases of very large rooms: projectile
+ * integration, player shots against the formation, and invader bullets against players and shields.
+ * Only the detection half of each collision phase runs in parallel, against state nobody mutates
+ * during it; GameSession then applies the results on the tick thread in a fixed order, so a tick's
+ * outcome does not depend on how the work was split.
+ *
+ * <p>Rooms below both thresholds never touch the pool: for a two-player room the fork/join hand-off
+ * costs more than the work it would split.
+ */
+public class ParallelPhases {
+
+    private final ForkJoinPool pool;
+    private final int minPlayers;
+    private final int minProjectiles;
+
+    public ParallelPhases(ForkJoinPool pool, int minPlayers, int minProjectiles) {
+        this.pool = pool;
+        this.minPlayers = minPlayers;
+        this.minProjectiles = minProjectiles;
+    }
+
+    boolean appliesTo(int players, int projectiles) {
+        return players >= minPlayers || projectiles >= minProjectiles;
+    }
+
+    /**
+     * Run a phase inside the pool, so parallel streams it opens split across the pool's workers.
+     */
+    void run(Runnable phase) {
+        pool.submit(phase).join();
+    }
+
+    <T> T call(Callable<T> phase) {
+        return pool.submit(phase).join();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,268 @@
+package ch.multispace.backend.game;
+
+import ch.multispace.backend.cluster.RoomRouter;
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps running matches alive across a restart.
+ *
+ * <p>On shutdown ({@link #stop()}, which runs before the web server closes any socket) the service
+ * drains: no new rooms or players are admitted, the tick is suspended, and every running room is
+ * written to {@code app.game.checkpoint.file}. Rooms that could not be checkpointed - checkpointing
+ * is off, or the write failed - are ended instead, results and scores included, so no finished work
+ * is lost either way. A checkpointed room is left alone when its sockets close; its scores are
+ * persisted when it eventually ends on the next process.
+ *
+ * <p>On startup the file is read back and its rooms registered with every seat detached. A player
+ * who reconnects within {@code app.game.checkpoint.grace-seconds} retakes their seat, ship, score
+ * and lives; a restored room holds still until someone is back. Seats nobody retook are dropped
+ * when the grace window closes, and a room left with no one is ended like any other. A room this
+ * node no longer owns ({@link RoomRouter}, e.g. after the membership changed) is ended rather than
+ * restored, since its players would reconnect to its new owner.
+ */
+@Service
+public class RoomCheckpointService implements SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomCheckpointService.class);
+
+    private static final int MAGIC = 0x53494d52; // "SIMR"
+    private static final short FORMAT_VERSION = 2; // 2 added kill counts
+
+    @Value("${app.game.checkpoint.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.game.checkpoint.file:rooms.checkpoint}")
+    private String file = "rooms.checkpoint";
+
+    @Value("${app.game.checkpoint.grace-seconds:120}")
+    private long graceSeconds = 120;
+
+    private final GameLoop gameLoop;
+    private final RoomWriteBehind roomWriteBehind;
+    private final RoomRouter roomRouter;
+
+    // restored rooms still inside their grace window
+    private final Map<UUID, GameSession> restored = new ConcurrentHashMap<>();
+    private volatile long graceEndsAtMillis;
+    private volatile boolean running;
+
+    public RoomCheckpointService(
+            GameLoop gameLoop, RoomWriteBehind roomWriteBehind, RoomRouter roomRouter) {
+        this.gameLoop = gameLoop;
+        this.roomWriteBehind = roomWriteBehind;
+        this.roomRouter = roomRouter;
+    }
+
+    // -------------------------
+    // Restore
+    // -------------------------
+    /** Runs at bean creation, before the web server accepts the first reconnect. */
+    @PostConstruct
+    void restore() {
+        Path path = Path.of(file);
+        if (!enabled || !Files.exists(path)) return;
+
+        long start = System.nanoTime();
+        Checkpoint checkpoint;
+        try (InputStream in = Files.newInputStream(path)) {
+            checkpoint = read(in);
+        } catch (IOException e) {
+            LOGGER.error("Could not read room checkpoint {}, starting empty", path, e);
+            return;
+        } finally {
+            // never restore the same checkpoint twice, even if this start fails
+            moveAside(path);
+        }
+        long ageMillis = System.currentTimeMillis() - checkpoint.writtenAtMillis();
+        if (ageMillis > graceSeconds * 1_000) {
+            LOGGER.warn(
+                    "Room checkpoint is {} s old, past the grace window; ending its {} rooms",
+                    ageMillis / 1_000,
+                    checkpoint.rooms().size());
+            checkpoint.rooms().forEach(this::endRoom);
+            return;
+        }
+
+        graceEndsAtMillis = checkpoint.writtenAtMillis() + graceSeconds * 1_000;
+        int moved = 0;
+        for (GameSession room : checkpoint.rooms()) {
+            if (!roomRouter.isLocal(room.getRoomId())) {
+                endRoom(room);
+                moved++;
+                continue;
+            }
+            GameLoop.registerRoom(room);
+            restored.put(room.getRoomId(), room);
+        }
+        if (moved > 0) {
+            LOGGER.warn("Ended {} checkpointed rooms now owned by another node", moved);
+        }
+        LOGGER.info(
+                "Restored {} rooms from {} in {} ms; players have until {} s from now to return",
+                restored.size(),
+                path,
+                (System.nanoTime() - start) / 1_000_000,
+                Math.max(0, (graceEndsAtMillis - System.currentTimeMillis()) / 1_000));
+    }
+
+    /** The restored room in which this user still holds a seat, if any. */
+    public Optional<GameSession> resumableRoomFor(String userId) {
+        if (restored.isEmpty()) return Optional.empty();
+        return restored.values().stream()
+                .filter(r -> !r.isClosed() && r.hasDetachedSeat(userId))
+                .findFirst();
+    }
+
+    /** Once the grace window closes, give up the seats nobody retook. */
+    @Scheduled(fixedRate = 5_000)
+    void expireDetachedSeats() {
+        if (restored.isEmpty() || System.currentTimeMillis() < graceEndsAtMillis) return;
+        for (GameSession room : List.copyOf(restored.values())) {
+            restored.remove(room.getRoomId());
+            int dropped = room.dropDetachedSeats();
+            if (dropped > 0) {
+                LOGGER.info("Dropped {} unclaimed seats in room {}", dropped, room.getRoomId());
+            }
+            if (room.isClosed()) endRoom(room);
+        }
+    }
+
+    /** End a room as when its last player leaves: results, scores and its persisted row. */
+    private void endRoom(GameSession room) {
+        roomWriteBehind.roomEnded(room);
+    }
+
+    // -------------------------
+    // Drain
+    // -------------------------
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Default phase: stopped before the web server's graceful shutdown closes the sockets. */
+    @Override
+    public void stop() {
+        running = false;
+        GameLoop.startDraining();
+        gameLoop.suspend();
+
+        List<GameSession> rooms = new ArrayList<>();
+        for (GameSession room : GameLoop.allRooms()) {
+            if (room.isClosed()) continue;
+            room.snapshotScores();
+            rooms.add(room);
+        }
+
+        if (enabled && !rooms.isEmpty()) {
+            long start = System.nanoTime();
+            Path path = Path.of(file);
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    write(out, rooms, System.currentTimeMillis());
+                }
+                Files.move(
+                        tmp,
+                        path,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                rooms.forEach(GameSession::markCheckpointed);
+                LOGGER.info(
+                        "Checkpointed {} rooms to {} in {} ms",
+                        rooms.size(),
+                        path,
+                        (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                LOGGER.error("Room checkpoint failed, persisting scores instead", e);
+            }
+        }
+
+        // the write-behind queues are flushed when their beans are destroyed, after this
+        int ended = 0;
+        for (GameSession room : rooms) {
+            if (room.isCheckpointed() || room.isScoresClaimed()) continue;
+            endRoom(room);
+            ended++;
+        }
+        if (ended > 0) LOGGER.info("Ended {} rooms that were not checkpointed", ended);
+    }
+
+    private static void moveAside(Path path) {
+        try {
+            Files.move(
+                    path,
+                    path.resolveSibling(path.getFileName() + ".restored"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Could not move used checkpoint {} aside: {}", path, e.getMessage());
+        }
+    }
+
+    // -------------------------
+    // File format
+    // -------------------------
+    static void write(OutputStream target, Collection<GameSession> rooms, long writtenAtMillis)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(writtenAtMillis);
+        out.writeInt(rooms.size());
+        for (GameSession room : rooms) {
+            room.writeCheckpoint(out);
+        }
+        out.flush();
+    }
+
+    /** Reads the whole file up front and decodes from a plain buffer: no per-field stream calls. */
+    static Checkpoint read(InputStream source) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(source.readAllBytes());
+        try {
+            if (in.getInt() != MAGIC) throw new IOException("Not a room checkpoint");
+            short version = in.getShort();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("Unsupported room checkpoint version " + version);
+            }
+            long writtenAtMillis = in.getLong();
+            int count = in.getInt();
+            List<GameSession> rooms = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rooms.add(GameSession.readCheckpoint(in, version));
+            }
+            return new Checkpoint(writtenAtMillis, rooms);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated room checkpoint", e);
+        }
+    }
+
+    record Checkpoint(long writtenAtMillis, List<GameSession> rooms) {}
+}
@@ -0,0 +1,156 @@
+package ch.multispace.backend.game;
+
+import ch.multispace.backend.cluster.RoomRouter;
+import ch.multispace.backend.dtos.GameRoomDto;
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every room not yet ended, in memory, so the lobby's list and room polls never query the database.
+ * Loaded at startup and kept current from the waiting-room events: {@link
+ * ch.multispace.backend.events.RoomsEventBroadcaster} applies each event here before pushing it to
+ * its SSE clients, and with a shared bus that includes the events of every other node.
+ *
+ * <p>Events about one room can be published out of order (two joins commit one after the other but
+ * broadcast concurrently), and with the local bus other nodes' changes are never seen, so the
+ * directory is also reloaded from the database every {@code app.rooms.directory-resync-ms}. A room
+ * changed by an event since the reload started keeps the event's version.
+ *
+ * <p>Reads are enriched with the room's current owner and, if its game runs on this node, the
+ * game's live level and player count.
+ */
+@Component
+public class RoomDirectory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomDirectory.class);
+
+    private static final Comparator<GameRoomDto> BY_NAME =
+            Comparator.comparing(
+                            GameRoomDto::roomName, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(GameRoomDto::roomId);
+
+    private final GameRoomService gameRoomService;
+    private final RoomRouter roomRouter;
+    private final ObjectMapper objectMapper;
+
+    private final Map<UUID, GameRoomDto> rooms = new ConcurrentHashMap<>();
+    // System.nanoTime() of the last event per room; a reload leaves rooms changed after it began
+    private final Map<UUID, Long> changedAt = new ConcurrentHashMap<>();
+
+    public RoomDirectory(
+            GameRoomService gameRoomService, RoomRouter roomRouter, ObjectMapper objectMapper) {
+        this.gameRoomService = gameRoomService;
+        this.roomRouter = roomRouter;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Rooms open to join, by name. */
+    public List<GameRoomDto> openRooms() {
+        return rooms.values().stream()
+                .filter(room -> "WAITING".equals(room.status()))
+                .sorted(BY_NAME)
+                .map(this::enrich)
+                .toList();
+    }
+
+    /** How many rooms {@link #openRooms} would list. */
+    public int openRoomCount() {
+        return (int)
+                rooms.values().stream().filter(room -> "WAITING".equals(room.status())).count();
+    }
+
+    /** A room not yet ended; empty for an unknown or ended room. */
+    public Optional<GameRoomDto> find(UUID roomId) {
+        return Optional.ofNullable(rooms.get(roomId)).map(this::enrich);
+    }
+
+    /** Apply a waiting-room event, from this node or another. */
+    public void apply(RoomsEvent event) {
+        try {
+            switch (event.type()) {
+                case "room.created", "room.updated", "room.started" -> {
+                    GameRoomDto room = roomOf(event.payload());
+                    changedAt.put(room.roomId(), System.nanoTime());
+                    if (GameRoomService.STATUS_ENDED.equals(room.status())) {
+                        rooms.remove(room.roomId());
+                    } else {
+                        rooms.put(room.roomId(), room);
+                    }
+                }
+                case "room.deleted" -> {
+                    UUID roomId = roomIdOf(event.payload());
+                    changedAt.put(roomId, System.nanoTime());
+                    rooms.remove(roomId);
+                }
+                default -> {}
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Ignoring malformed {} event: {}", event.type(), e.getMessage());
+        }
+    }
+
+    /** Replace the directory with the database's rooms, except those an event changed meanwhile. */
+    @PostConstruct
+    @Scheduled(
+            initialDelayString = "${app.rooms.directory-resync-ms:30000}",
+            fixedDelayString = "${app.rooms.directory-resync-ms:30000}")
+    public synchronized void reload() {
+        long started = System.nanoTime();
+        Map<UUID, GameRoomDto> loaded =
+                gameRoomService.listedRooms().stream()
+                        .map(GameRoomDto::from)
+                        .collect(Collectors.toMap(GameRoomDto::roomId, room -> room));
+        for (GameRoomDto room : loaded.values()) {
+            rooms.compute(
+                    room.roomId(), (id, current) -> changedSince(id, started) ? current : room);
+        }
+        for (UUID id : rooms.keySet()) {
+            if (!loaded.containsKey(id)) {
+                rooms.computeIfPresent(
+                        id, (_, current) -> changedSince(id, started) ? current : null);
+            }
+        }
+        // what the reload read already covers these
+        changedAt.entrySet().removeIf(e -> e.getValue() - started < 0);
+        LOGGER.debug("Room directory reloaded: {} rooms", rooms.size());
+    }
+
+    private boolean changedSince(UUID roomId, long since) {
+        Long at = changedAt.get(roomId);
+        return at != null && at - since >= 0;
+    }
+
+    private GameRoomDto enrich(GameRoomDto room) {
+        GameSession session = GameLoop.getRoom(room.roomId());
+        GameRoomDto.Live live =
+                session == null || session.isClosed()
+                        ? null
+                        : new GameRoomDto.Live(session.getLevel(), session.getPlayerCount());
+        return room.withRuntime(roomRouter.ownerOf(room.roomId()), live);
+    }
+
+    // payloads are the published objects on this node, JSON trees when relayed from another
+    private GameRoomDto roomOf(Object payload) {
+        if (payload instanceof GameRoomDto room) return room;
+        return objectMapper.convertValue(payload, GameRoomDto.class);
+    }
+
+    private static UUID roomIdOf(Object payload) {
+        if (payload instanceof UUID roomId) return roomId;
+        if (payload instanceof JsonNode node) return UUID.fromString(node.asText());
+        return UUID.fromString(String.valueOf(payload));
+    }
+}
@@ -0,0 +1,322 @@
+package ch.multispace.backend.game;
+
+import ch.multispace.backend.events.RoomsEventBroadcaster;
+import ch.multispace.backend.model.GameRoom;
+import ch.multispace.backend.score.MatchResult;
+import ch.multispace.backend.score.MatchResultWriter;
+import ch.multispace.backend.score.ScoreService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind for the persisted side of players leaving rooms. WebSocket threads only record what
+ * happened - a player left, a room emptied - and return; a single writer thread applies it every
+ * {@value #FLUSH_INTERVAL_MS} ms, so a disconnect storm costs the container threads nothing and the
+ * database a handful of transactions instead of one load-and-save per disconnect.
+ *
+ * <p>A room whose last player leaves has ended. If anyone played in it, its row is kept as match
+ * history - status {@code ENDED}, with the wave reached and the end time - and each player's result
+ * goes to {@link MatchResultWriter}; a room nobody played in is deleted. Either way it leaves the
+ * lobby with a {@code room.deleted} event.
+ *
+ * <p>Changes to the same room coalesce while they wait: any number of departures become one update,
+ * and a room that ends needs only its final write. Rooms are flushed in the order they first
+ * changed, up to {@value #MAX_BATCH} per transaction, and the {@code room.updated} / {@code
+ * room.deleted} events go out only after that transaction has committed. If a batch fails, its
+ * rooms are retried one transaction each so a single bad row cannot hold back the rest. A room that
+ * still fails goes back into the queue, merged with anything that changed since, and is tried
+ * again up to {@code app.rooms.write-max-attempts} times, the wait doubling from {@code
+ * app.rooms.write-retry-backoff-ms}; only then is it dropped and counted as failed. An ended room
+ * is marked {@link GameSession#markScoresPersisted persisted} once its row has committed; its
+ * scores and results are retried by {@link ScoreService} and {@link MatchResultWriter} themselves.
+ */
+@Service
+public class RoomWriteBehind {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomWriteBehind.class);
+
+    static final long FLUSH_INTERVAL_MS = 50;
+    static final int MAX_BATCH = 256;
+
+    private final GameRoomService gameRoomService;
+    private final ScoreService scoreService;
+    private final MatchResultWriter matchResultWriter;
+    private final RoomsEventBroadcaster roomsEventBroadcaster;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.rooms.write-max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${app.rooms.write-retry-backoff-ms:250}")
+    private long retryBackoffMs = 250;
+
+    private final AtomicLong failed = new AtomicLong();
+
+    // insertion order is the order rooms first changed; guarded by this
+    private final Map<UUID, PendingRoom> pending = new LinkedHashMap<>();
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public RoomWriteBehind(
+            GameRoomService gameRoomService,
+            ScoreService scoreService,
+            MatchResultWriter matchResultWriter,
+            RoomsEventBroadcaster roomsEventBroadcaster,
+            PlatformTransactionManager transactionManager) {
+        this.gameRoomService = gameRoomService;
+        this.scoreService = scoreService;
+        this.matchResultWriter = matchResultWriter;
+        this.roomsEventBroadcaster = roomsEventBroadcaster;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("room-write-behind").daemon().start(this::writeLoop);
+    }
+
+    /** Stops the writer and flushes whatever is still pending on the calling thread. */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5_000);
+        flushAll();
+    }
+
+    /** A player left a room that still has others in it. */
+    public synchronized void playerLeft(UUID roomId, UUID playerId) {
+        pending.computeIfAbsent(roomId, PendingRoom::new).departed.add(playerId);
+    }
+
+    /**
+     * The room's last player left: record its results, persist the final scores once, and end the
+     * persisted room.
+     */
+    public void roomEnded(GameSession room) {
+        Map<UUID, Long> finalScores = Map.of();
+        boolean claimed = room.claimScores();
+        if (claimed) {
+            finalScores = room.getScoresSnapshotUuidMap();
+            matchResultWriter.record(resultsOf(room, finalScores));
+        }
+        synchronized (this) {
+            PendingRoom pendingRoom = pending.computeIfAbsent(room.getRoomId(), PendingRoom::new);
+            if (claimed) pendingRoom.session = room;
+            pendingRoom.ended = true;
+            pendingRoom.wave = room.getLevel();
+            pendingRoom.played |= !finalScores.isEmpty();
+            pendingRoom.finalScores.putAll(finalScores);
+        }
+    }
+
+    private static List<MatchResult> resultsOf(GameSession room, Map<UUID, Long> finalScores) {
+        Map<UUID, Integer> kills = room.getKillsSnapshotUuidMap();
+        OffsetDateTime now = OffsetDateTime.now();
+        List<MatchResult> results = new ArrayList<>(finalScores.size());
+        finalScores.forEach(
+                (userId, score) ->
+                        results.add(
+                                new MatchResult(
+                                        room.getRoomId(),
+                                        userId,
+                                        score,
+                                        room.getLevel(),
+                                        kills.getOrDefault(userId, 0),
+                                        now)));
+        return results;
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /** Rooms whose changes were dropped after every retry. */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MS);
+                flushAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Room write-behind flush failed", e);
+            }
+        }
+    }
+
+    void flushAll() {
+        List<PendingRoom> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private synchronized List<PendingRoom> takeBatch() {
+        List<PendingRoom> batch = new ArrayList<>(Math.min(MAX_BATCH, pending.size()));
+        long now = System.currentTimeMillis();
+        Iterator<PendingRoom> it = pending.values().iterator();
+        while (it.hasNext() && batch.size() < MAX_BATCH) {
+            PendingRoom room = it.next();
+            // rooms backing off wait their turn, except for the last flush on shutdown
+            if (running && room.retryAtMillis > now) continue;
+            batch.add(room);
+            it.remove();
+        }
+        return batch;
+    }
+
+    /** Put a room that failed back in the queue, or drop it once it has had every attempt. */
+    private void retryLater(PendingRoom room, RuntimeException e) {
+        if (++room.attempts >= maxAttempts) {
+            failed.incrementAndGet();
+            LOGGER.error(
+                    "Dropping changes to room {} after {} attempts: {}",
+                    room.roomId,
+                    room.attempts,
+                    e.getMessage());
+            return;
+        }
+        long backoffMs = retryBackoffMs << (room.attempts - 1);
+        LOGGER.warn(
+                "Failed to persist changes to room {}, retrying in {} ms: {}",
+                room.roomId,
+                backoffMs,
+                e.getMessage());
+        room.retryAtMillis = System.currentTimeMillis() + backoffMs;
+        synchronized (this) {
+            // changes recorded since the batch was taken are newer: apply them on top
+            PendingRoom newer = pending.remove(room.roomId);
+            if (newer != null) room.merge(newer);
+            pending.put(room.roomId, room);
+        }
+    }
+
+    private void flush(List<PendingRoom> batch) {
+        // score updates are per player and independent of the room rows; keep them out of the
+        // membership transaction so one cannot roll back the other
+        for (PendingRoom room : batch) {
+            if (room.ended && !room.finalScores.isEmpty()) {
+                scoreService.persistRoomScores(room.finalScores);
+                // handed over; a retry of the room must not add them twice
+                room.finalScores.clear();
+            }
+        }
+
+        List<Runnable> events;
+        List<PendingRoom> written = batch;
+        try {
+            events = transactionTemplate.execute(_ -> applyAll(batch));
+        } catch (RuntimeException e) {
+            LOGGER.warn(
+                    "Batch of {} room writes failed ({}), retrying one by one",
+                    batch.size(),
+                    e.getMessage());
+            events = new ArrayList<>();
+            written = new ArrayList<>(batch.size());
+            for (PendingRoom room : batch) {
+                try {
+                    events.addAll(transactionTemplate.execute(_ -> applyAll(List.of(room))));
+                    written.add(room);
+                } catch (RuntimeException single) {
+                    retryLater(room, single);
+                }
+            }
+        }
+        // only now are the writes durable
+        for (PendingRoom room : written) {
+            if (room.session != null) room.session.markScoresPersisted();
+        }
+        events.forEach(Runnable::run);
+    }
+
+    /** Apply the batch inside the current transaction; returns the events to publish on commit. */
+    private List<Runnable> applyAll(List<PendingRoom> batch) {
+        List<Runnable> events = new ArrayList<>(batch.size());
+        for (PendingRoom room : batch) {
+            // locked like a join, so a join landing meanwhile is neither lost nor over capacity
+            GameRoom dbRoom = gameRoomService.lockRoom(room.roomId).orElse(null);
+            if (dbRoom == null) {
+                LOGGER.info("No persisted room {} to update (already gone?)", room.roomId);
+                continue;
+            }
+            if (room.ended) {
+                if (GameRoomService.STATUS_ENDED.equals(dbRoom.getStatus())) {
+                    continue; // already history; a late leave must not delete it
+                }
+                if (room.played) {
+                    dbRoom.setStatus(GameRoomService.STATUS_ENDED);
+                    dbRoom.setEndedAt(OffsetDateTime.now());
+                    dbRoom.setWave(room.wave);
+                    gameRoomService.save(dbRoom);
+                } else {
+                    gameRoomService.deleteRoom(dbRoom);
+                }
+                // gone from the lobby either way
+                events.add(() -> roomsEventBroadcaster.broadcastRoomDeleted(room.roomId));
+                continue;
+            }
+            dbRoom = gameRoomService.removePlayers(dbRoom, room.departed);
+            // If players remain, ensure status reflects availability
+            if (dbRoom.getPlayerIds().size() < GameRoomService.capacityOf(dbRoom)) {
+                dbRoom.setStatus("WAITING");
+            }
+            GameRoom saved = gameRoomService.save(dbRoom);
+            events.add(() -> roomsEventBroadcaster.broadcastRoomUpdated(saved));
+        }
+        return events;
+    }
+
+    private static final class PendingRoom {
+        final UUID roomId;
+        final Set<UUID> departed = new LinkedHashSet<>();
+        final Map<UUID, Long> finalScores = new HashMap<>();
+        // the ended room, if this entry carries its claimed final scores
+        GameSession session;
+        boolean ended;
+        boolean played;
+        int wave;
+        int attempts;
+        long retryAtMillis;
+
+        PendingRoom(UUID roomId) {
+            this.roomId = roomId;
+        }
+
+        /** Fold in changes made after this one was taken for writing. */
+        void merge(PendingRoom newer) {
+            departed.addAll(newer.departed);
+            finalScores.putAll(newer.finalScores);
+            played |= newer.played;
+            if (newer.ended) {
+                ended = true;
+                wave = newer.wave;
+            }
+            if (newer.session != null) session = newer.session;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ch.multispace.backend.game;
+
+/**
+ * Decides, tick by tick, whether one connection receives the current state snapshot. Every snapshot
+ * is a complete frame, so skipping ticks only lowers the frame rate a client sees; it never leaves
+ * it with a partial view.
+ *
+ * <p>The send interval backs off multiplicatively when the connection is congested (bytes still
+ * queued in its outbound buffer, RTT risen well above its own baseline, or a failed send) and
+ * recovers one step at a time after a run of healthy sends, the same shape as TCP congestion
+ * control. The baseline is the lowest RTT this connection showed over the last few seconds: a
+ * distant client with a steady 300 ms is as healthy as a near one at 30 ms, only RTT that grows
+ * while it plays means queueing somewhere on the path. A healthy client stays at the full tick
+ * rate; a congested one gets fewer frames instead of an ever-growing queue of stale ones.
+ *
+ * <p>Only the game tick thread drives a pacer; {@link #getRateHz()} may be read from anywhere.
+ */
+class SnapshotPacer {
+
+    static final int MAX_INTERVAL_TICKS = 8;
+
+    // a couple of full snapshots still waiting in the buffer means the client is not keeping up
+    private static final long CONGESTED_BUFFER_BYTES = 32 * 1024;
+    // RTT is congested once queueing adds half the baseline on top of it, and at least this much,
+    // so a few ms of jitter on a short link is not mistaken for a queue
+    private static final double MIN_RTT_RISE_MS = 50;
+    // the baseline is re-taken from this window's minimum, following a route that got longer
+    private static final int BASE_RTT_WINDOW_TICKS = (int) (10_000 / GameLoop.TICK_MILLIS);
+    private static final int HEALTHY_SENDS_BEFORE_SPEEDUP = 30;
+
+    private volatile int intervalTicks = 1;
+    private int ticksSinceSend = 0;
+    private int healthySends = 0;
+    private boolean failedSinceLastSend = false;
+    private double baseRttMs = Double.MAX_VALUE;
+    private double windowMinRttMs = Double.MAX_VALUE;
+    private int windowTicks = 0;
+
+    /**
+     * Advance one tick and report whether this connection should get the current snapshot.
+     *
+     * @param bufferedBytes bytes still queued for this connection, 0 if unknown
+     * @param rttMs smoothed RTT of this connection, negative if not measured yet
+     */
+    boolean isDue(long bufferedBytes, double rttMs) {
+        observeRtt(rttMs);
+        ticksSinceSend++;
+        if (ticksSinceSend < intervalTicks) return false;
+        ticksSinceSend = 0;
+
+        boolean backlogged = bufferedBytes > CONGESTED_BUFFER_BYTES;
+        double rttRiseMs = rttMs < 0 ? 0 : rttMs - baseRttMs;
+        double congestedRiseMs = Math.max(MIN_RTT_RISE_MS, baseRttMs / 2);
+        if (backlogged || failedSinceLastSend || rttRiseMs > congestedRiseMs) {
+            intervalTicks = Math.min(MAX_INTERVAL_TICKS, intervalTicks * 2);
+            healthySends = 0;
+            failedSinceLastSend = false;
+            // queueing another frame behind a backlog only adds latency; let it drain first
+            return !backlogged;
+        }
+
+        if (bufferedBytes == 0 && rttRiseMs < congestedRiseMs / 2) {
+            if (++healthySends >= HEALTHY_SENDS_BEFORE_SPEEDUP && intervalTicks > 1) {
+                intervalTicks--;
+                healthySends = 0;
+            }
+        }
+        return true;
+    }
+
+    private void observeRtt(double rttMs) {
+        if (rttMs >= 0) {
+            baseRttMs = Math.min(baseRttMs, rttMs);
+            windowMinRttMs = Math.min(windowMinRttMs, rttMs);
+        }
+        if (++windowTicks >= BASE_RTT_WINDOW_TICKS) {
+            if (windowMinRttMs != Double.MAX_VALUE) baseRttMs = windowMinRttMs;
+            windowMinRttMs = Double.MAX_VALUE;
+            windowTicks = 0;
+        }
+    }
+
+    void onSendFailure() {
+        failedSinceLastSend = true;
+    }
+
+    /** Snapshots per second this connection currently receives. */
+    double getRateHz() {
+        return 1000.0 / (GameLoop.TICK_MILLIS * intervalTicks);
+    }
+}
@@ -0,0 +1,28 @@
+package ch.multispace.backend.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+import lombok.*;
+
+/**
+ * A backend instance's heartbeat row, used when cluster membership is kept in the database. A node
+ * counts as a member while its last heartbeat is recent; see {@code cluster/RoomRouter}.
+ */
+@Entity
+@Table(name = "cluster_members")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterMember {
+
+    @Id
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Column(name = "base_url")
+    private String baseUrl;
+
+    @Column(name = "last_seen_at", nullable = false)
+    private OffsetDateTime lastSeenAt;
+}
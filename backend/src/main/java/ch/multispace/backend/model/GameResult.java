@@ -5,7 +5,10 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "game_results")
+// bounds a rollup rebuild to its window's results (score/ScoreRollupService)
+@Table(
+        name = "game_results",
+        indexes = @Index(name = "game_results_created_at_idx", columnList = "created_at"))
 public class GameResult {
 
     @Id
@@ -6,7 +6,10 @@ import java.util.UUID;
 import lombok.*;
 
 @Entity
-@Table(name = "players")
+// backs the keyset-paginated leaderboard (PlayerRepository.findHighScoresAfter)
+@Table(
+        name = "players",
+        indexes = @Index(name = "players_high_score_id_idx", columnList = "high_score, id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,6 +38,7 @@ public class PlayerEntity {
     @Column(name = "games_played", columnDefinition = "INT DEFAULT 0")
     private int gamesPlayed = 0;
 
-    @Column(name = "high_score", columnDefinition = "INT DEFAULT 0")
+    // NOT NULL: Postgres would sort a NULL above every score in the leaderboard's DESC order
+    @Column(name = "high_score", nullable = false, columnDefinition = "INT DEFAULT 0")
     private int highScore = 0;
 }
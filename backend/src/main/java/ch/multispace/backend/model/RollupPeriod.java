@@ -0,0 +1,31 @@
+package ch.multispace.backend.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The length of a {@link ScoreRollup} window. Windows are UTC calendar days and ISO weeks (Monday
+ * to Sunday), identified by their first day.
+ */
+public enum RollupPeriod {
+    DAY,
+    WEEK;
+
+    /** The first day of the window containing {@code date} */
+    public LocalDate startOf(LocalDate date) {
+        return this == DAY ? date : date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /** The first day of the window containing the instant {@code time} */
+    public LocalDate startOf(OffsetDateTime time) {
+        return startOf(time.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate());
+    }
+
+    /** The first day of the window after the one starting on {@code start} */
+    public LocalDate next(LocalDate start) {
+        return this == DAY ? start.plusDays(1) : start.plusWeeks(1);
+    }
+}
@@ -0,0 +1,58 @@
+package ch.multispace.backend.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.*;
+
+/**
+ * One user's results summed over one daily or weekly window, so a windowed leaderboard is a range
+ * scan of {@code score_rollups_board_idx} instead of an aggregate over {@code game_results}. Kept
+ * up to date by {@code score/ScoreRollupService} as match results are written.
+ */
+@Entity
+@Table(
+        name = "score_rollups",
+        indexes =
+                @Index(
+                        name = "score_rollups_board_idx",
+                        columnList = "period, period_start, best_score, user_id"))
+@IdClass(ScoreRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreRollup {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period", nullable = false)
+    private RollupPeriod period;
+
+    @Id
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "best_score", nullable = false)
+    private int bestScore;
+
+    @Column(name = "total_score", nullable = false)
+    private long totalScore;
+
+    @Column(name = "games_played", nullable = false)
+    private int gamesPlayed;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private RollupPeriod period;
+        private LocalDate periodStart;
+        private UUID userId;
+    }
+}
@@ -4,9 +4,21 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 import java.util.UUID;
+import lombok.*;
 
+/**
+ * A revoked JWT: {@code token} holds the token's ID ({@code jti}) and {@code expiresAt} the token's
+ * own expiry, after which the row is useless and is deleted. See {@code
+ * security/TokenRevocationService}.
+ */
 @Entity
-@Table(name = "sessions")
+// the revocation refresh reads rows newer than its last pass
+@Table(
+        name = "sessions",
+        indexes = @Index(name = "sessions_created_at_idx", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
 public class SessionEntity {
 
     @Id
@@ -0,0 +1,10 @@
+package ch.multispace.backend.repositories;
+
+import ch.multispace.backend.model.ClusterMember;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ClusterMemberRepository extends JpaRepository<ClusterMember, String> {
+    List<ClusterMember> findByLastSeenAtAfter(OffsetDateTime cutoff);
+}
@@ -0,0 +1,16 @@
+package ch.multispace.backend.repositories;
+
+import ch.multispace.backend.model.GameResult;
+import ch.multispace.backend.model.GameRoom;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface GameResultRepository extends JpaRepository<GameResult, UUID> {
+
+    @Modifying
+    @Query("update GameResult r set r.session = null where r.session = :room")
+    int detachFromRoom(@Param("room") GameRoom room);
+}
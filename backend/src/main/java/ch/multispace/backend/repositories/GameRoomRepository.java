@@ -1,13 +1,57 @@
 package ch.multispace.backend.repositories;
 
 import ch.multispace.backend.model.GameRoom;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface GameRoomRepository extends JpaRepository<GameRoom, UUID> {
     Optional<GameRoom> findByRoomId(UUID roomId);
 
-    List<GameRoom> findByStatus(String status);
+    /** Every room not yet ended, with its host and players loaded: the room directory's view. */
+    @Query(
+            "select distinct r from GameRoom r left join fetch r.host h left join fetch h.user"
+                    + " left join fetch r.playerIds"
+                    + " where r.status is null or r.status <> 'ENDED'")
+    List<GameRoom> findListed();
+
+    /**
+     * The room, with its row locked until the transaction ends (SELECT ... FOR UPDATE): every
+     * change to a room's players takes this lock first, so they apply one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from GameRoom r where r.roomId = :roomId")
+    Optional<GameRoom> lockByRoomId(@Param("roomId") UUID roomId);
+
+    @Query("select count(p) from GameRoom r join r.playerIds p where r.roomId = :roomId")
+    long countPlayers(@Param("roomId") UUID roomId);
+
+    @Query(
+            "select count(p) from GameRoom r join r.playerIds p "
+                    + "where r.roomId = :roomId and p = :playerId")
+    long countPlayer(@Param("roomId") UUID roomId, @Param("playerId") UUID playerId);
+
+    // one row in, instead of Hibernate deleting and rewriting the whole collection
+    @Modifying
+    @Query(
+            value =
+                    "INSERT INTO game_room_players (game_room_id, player_id)"
+                            + " VALUES (:roomId, :playerId)",
+            nativeQuery = true)
+    void addPlayer(@Param("roomId") UUID roomId, @Param("playerId") UUID playerId);
+
+    @Modifying
+    @Query(
+            value =
+                    "DELETE FROM game_room_players"
+                            + " WHERE game_room_id = :roomId AND player_id IN (:playerIds)",
+            nativeQuery = true)
+    int removePlayers(@Param("roomId") UUID roomId, @Param("playerIds") Collection<UUID> playerIds);
 }
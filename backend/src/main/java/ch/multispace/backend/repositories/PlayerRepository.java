@@ -1,19 +1,42 @@
 package ch.multispace.backend.repositories;
 
-import ch.multispace.backend.dtos.LeaderboardRowDto;
 import ch.multispace.backend.model.PlayerEntity;
 import ch.multispace.backend.model.User;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PlayerRepository extends JpaRepository<PlayerEntity, UUID> {
     Optional<PlayerEntity> findByUser(User user);
 
+    /** First page of the leaderboard: one range scan of players_high_score_id_idx. */
     @Query(
-            "select new ch.multispace.backend.dtos.LeaderboardRowDto(u.username, p.highScore) "
-                    + "from PlayerEntity p join p.user u order by p.highScore desc")
-    List<LeaderboardRowDto> listHighScores();
+            "select p.id as id, u.username as username, p.highScore as highScore "
+                    + "from PlayerEntity p join p.user u "
+                    + "order by p.highScore desc, p.id desc")
+    List<HighScoreRow> findHighScores(Limit limit);
+
+    /**
+     * The page after the row ({@code highScore}, {@code id}). The row-value comparison lets the
+     * database seek straight to the cursor, so every page costs the same however deep it is.
+     */
+    @Query(
+            "select p.id as id, u.username as username, p.highScore as highScore "
+                    + "from PlayerEntity p join p.user u "
+                    + "where (p.highScore, p.id) < (:highScore, :id) "
+                    + "order by p.highScore desc, p.id desc")
+    List<HighScoreRow> findHighScoresAfter(
+            @Param("highScore") int highScore, @Param("id") UUID id, Limit limit);
+
+    interface HighScoreRow {
+        UUID getId();
+
+        String getUsername();
+
+        Integer getHighScore();
+    }
 }
@@ -0,0 +1,26 @@
+package ch.multispace.backend.repositories;
+
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.model.RollupPeriod;
+import ch.multispace.backend.model.ScoreRollup;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ScoreRollupRepository extends JpaRepository<ScoreRollup, ScoreRollup.Key> {
+
+    /**
+     * The best of one window: a backward range scan of score_rollups_board_idx that stops after
+     * {@code limit} rows, however many players the window has.
+     */
+    @Query(
+            "select new ch.multispace.backend.dtos.LeaderboardRowDto(u.username, r.bestScore) "
+                    + "from ScoreRollup r join User u on u.id = r.userId "
+                    + "where r.period = :period and r.periodStart = :start "
+                    + "order by r.bestScore desc, r.userId desc")
+    List<LeaderboardRowDto> findTop(
+            @Param("period") RollupPeriod period, @Param("start") LocalDate start, Limit limit);
+}
@@ -1,12 +1,28 @@
 package ch.multispace.backend.repositories;
 
 import ch.multispace.backend.model.SessionEntity;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface SessionRepository extends JpaRepository<SessionEntity, UUID> {
     Optional<SessionEntity> findByToken(String token);
 
     void deleteByToken(String token);
+
+    /** Revocations still in force, recorded after {@code since}. */
+    @Query("select s from SessionEntity s " + "where s.createdAt > :since and s.expiresAt > :now")
+    List<SessionEntity> findActiveCreatedAfter(
+            @Param("since") OffsetDateTime since, @Param("now") OffsetDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SessionEntity s where s.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
 }
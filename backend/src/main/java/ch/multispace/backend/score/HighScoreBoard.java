@@ -0,0 +1,227 @@
+package ch.multispace.backend.score;
+
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.dtos.PlayerRankDto;
+import ch.multispace.backend.dtos.RankedRowDto;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every player's high score, kept sorted in memory. Loaded once at startup and then moved forward
+ * by {@link ScoreService} as each batch of results commits, so reads never touch the database and
+ * cost only the rows they return. A periodic reload ({@code app.leaderboard.refresh-ms}) picks up
+ * what other nodes wrote.
+ *
+ * <p>Readers take the current table's read lock, so a player whose score is being raised is seen
+ * exactly once. Writers - the score flush and the reload - take this object's lock, so a reload
+ * cannot swap in a table read from before a batch that was applied to the old one.
+ *
+ * <p>Alongside the skip list each table keeps a {@link RankTree} of the same entries, so {@link
+ * #rankOf} finds a player's rank in O(log n) rather than by walking everyone above them. The two
+ * are changed together under the table's write lock and read together under its read lock.
+ *
+ * <p>Not to be confused with {@code model.Leaderboard}, the entity for the unused {@code
+ * leaderboard} table.
+ */
+@Component
+public class HighScoreBoard {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HighScoreBoard.class);
+
+    private static final String SELECT_ALL =
+            "SELECT u.id, u.username, p.high_score FROM players p JOIN users u ON u.id = p.user_id";
+
+    /** Highest score first; equal scores by name, then id, so the order is total and stable. */
+    static final Comparator<Entry> RANKING =
+            Comparator.comparingInt(Entry::highScore)
+                    .reversed()
+                    .thenComparing(Entry::username)
+                    .thenComparing(Entry::userId);
+
+    // with an empty name, orders before every real entry of the same score
+    private static final UUID FIRST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private static final RowMapper<Entry> ENTRY =
+            (rs, _) ->
+                    new Entry(
+                            rs.getObject(1, UUID.class),
+                            rs.getString(2),
+                            rs.getInt(3)); // NULL reads as 0, like the column default
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Table table = new Table();
+    // bumped after every change to the board, under its lock
+    private volatile long version;
+
+    public HighScoreBoard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    @Scheduled(
+            fixedRateString = "${app.leaderboard.refresh-ms:60000}",
+            initialDelayString = "${app.leaderboard.refresh-ms:60000}")
+    synchronized void reload() {
+        long start = System.nanoTime();
+        Table fresh = new Table();
+        jdbcTemplate.query(SELECT_ALL, ENTRY).forEach(fresh::put);
+        table = fresh;
+        version++;
+        LOGGER.debug(
+                "Loaded {} leaderboard entries in {} ms",
+                fresh.byUser.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** The first {@code limit} rows, best first. */
+    public List<LeaderboardRowDto> top(int limit) {
+        List<LeaderboardRowDto> rows = new ArrayList<>(Math.min(limit, 256));
+        Table current = table;
+        current.lock.readLock().lock();
+        try {
+            for (Entry entry : current.ranked) {
+                if (rows.size() >= limit) break;
+                rows.add(entry.row());
+            }
+        } finally {
+            current.lock.readLock().unlock();
+        }
+        return rows;
+    }
+
+    public int size() {
+        return table.byUser.size();
+    }
+
+    /**
+     * A player's rank and score with up to {@code neighbours} rows either side of theirs, or empty
+     * if they are not on the board. Equal scores share a rank, the best one's count plus one.
+     */
+    public Optional<PlayerRankDto> rankOf(UUID userId, int neighbours) {
+        Table current = table;
+        current.lock.readLock().lock();
+        try {
+            Entry entry = current.byUser.get(userId);
+            if (entry == null) return Optional.empty();
+
+            List<RankedRowDto> above = new ArrayList<>(neighbours);
+            Iterator<Entry> up = current.ranked.headSet(entry, false).descendingIterator();
+            while (above.size() < neighbours && up.hasNext()) {
+                above.add(current.ranked(up.next()));
+            }
+            Collections.reverse(above);
+            List<RankedRowDto> below = new ArrayList<>(neighbours);
+            Iterator<Entry> down = current.ranked.tailSet(entry, false).iterator();
+            while (below.size() < neighbours && down.hasNext()) {
+                below.add(current.ranked(down.next()));
+            }
+            return Optional.of(
+                    new PlayerRankDto(current.ranked(entry), above, below, current.byUser.size()));
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A batch of results has committed: raise each user's high score to at least {@code best}.
+     * Users not on the board yet - their profile was created by that batch - are read back.
+     */
+    synchronized void recordBests(Map<UUID, Integer> bestByUser) {
+        Table current = table;
+        List<UUID> unknown = new ArrayList<>();
+        bestByUser.forEach(
+                (userId, best) -> {
+                    Entry entry = current.byUser.get(userId);
+                    if (entry == null) {
+                        unknown.add(userId);
+                    } else if (best > entry.highScore()) {
+                        current.put(new Entry(userId, entry.username(), best));
+                    }
+                });
+        if (!unknown.isEmpty()) load(current, unknown);
+        version++;
+    }
+
+    /** A new profile starts on the board at zero, as it does in the table. */
+    public synchronized void playerCreated(UUID userId, String username) {
+        Table current = table;
+        if (!current.byUser.containsKey(userId)) {
+            current.put(new Entry(userId, username, 0));
+            version++;
+        }
+    }
+
+    /** Changes with every change to the board; equal values mean an unchanged board. */
+    public long version() {
+        return version;
+    }
+
+    private void load(Table into, Collection<UUID> userIds) {
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        jdbcTemplate
+                .query(
+                        SELECT_ALL + " WHERE u.id IN (" + placeholders + ")",
+                        ENTRY,
+                        userIds.toArray())
+                .forEach(into::put);
+    }
+
+    record Entry(UUID userId, String username, int highScore, LeaderboardRowDto row) {
+        Entry(UUID userId, String username, int highScore) {
+            this(userId, username, highScore, new LeaderboardRowDto(username, highScore));
+        }
+    }
+
+    /**
+     * The ranked set, its rank tree and its index by user; only ever changed under the board's lock
+     * and, once the table is visible to readers, this table's write lock.
+     */
+    private static final class Table {
+        final NavigableSet<Entry> ranked = new ConcurrentSkipListSet<>(RANKING);
+        final Map<UUID, Entry> byUser = new ConcurrentHashMap<>();
+        final RankTree<Entry> ranks = new RankTree<>(RANKING);
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        void put(Entry entry) {
+            lock.writeLock().lock();
+            try {
+                Entry previous = byUser.put(entry.userId(), entry);
+                if (previous != null) {
+                    ranked.remove(previous);
+                    ranks.remove(previous);
+                }
+                ranked.add(entry);
+                ranks.add(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** The entry with its rank: one plus the number of strictly higher scores. */
+        RankedRowDto ranked(Entry entry) {
+            Entry firstWithScore = new Entry(FIRST_ID, "", entry.highScore());
+            return new RankedRowDto(
+                    ranks.countBefore(firstWithScore) + 1, entry.username(), entry.highScore());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ch.multispace.backend.score;
+
+import ch.multispace.backend.dtos.LeaderboardDeltaDto;
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.dtos.RankedRowDto;
+import ch.multispace.backend.events.SseFanout;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * The top of the leaderboard, pushed over SSE so the leaderboard page need not poll. A client gets
+ * the top {@code app.leaderboard.stream-size} rows as one {@code snapshot} event, then a {@code
+ * delta} event whenever they change: the rows that entered or whose rank or score moved, and the
+ * players who dropped out.
+ *
+ * <p>Every {@code app.leaderboard.stream-interval-ms} the {@link HighScoreBoard}'s version is
+ * compared with the one last published; only if it moved - {@link ScoreService} applied a batch of
+ * results, or a reload read what other nodes wrote - are the top rows read from memory and diffed.
+ * Changes within one interval go out together, as one frame serialized once for all clients.
+ */
+@Component
+public class LeaderboardStream {
+
+    private static final int CLIENT_QUEUE = 16;
+    private static final int SENDERS = 2;
+
+    private final HighScoreBoard highScoreBoard;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.leaderboard.stream-size:50}")
+    private int streamSize = 50;
+
+    private SseFanout clients;
+    // what clients were last sent; guarded by this
+    private List<RankedRowDto> published = List.of();
+    private long publishedVersion = -1;
+
+    public LeaderboardStream(HighScoreBoard highScoreBoard, ObjectMapper objectMapper) {
+        this.highScoreBoard = highScoreBoard;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void start() {
+        clients = new SseFanout("leaderboard-sse-", CLIENT_QUEUE, SENDERS);
+        publish();
+    }
+
+    @PreDestroy
+    void stop() {
+        clients.shutdown();
+    }
+
+    /** SSE clients connected to this node. */
+    public int clientCount() {
+        return clients.size();
+    }
+
+    /** Subscribe a client; caller should have validated JWT before calling this */
+    public synchronized SseEmitter subscribe() {
+        // Set a long timeout (30 minutes)
+        return clients.open(30L * 60L * 1000L, List.of(frame("snapshot", published)));
+    }
+
+    /** Diff the top of the board against what was last sent, if the board changed since. */
+    @Scheduled(
+            initialDelayString = "${app.leaderboard.stream-interval-ms:1000}",
+            fixedDelayString = "${app.leaderboard.stream-interval-ms:1000}")
+    synchronized void publish() {
+        // read before the rows: a change landing in between shows again on the next pass
+        long version = highScoreBoard.version();
+        if (version == publishedVersion) return;
+        List<RankedRowDto> top = ranked(highScoreBoard.top(streamSize));
+        LeaderboardDeltaDto delta = diff(published, top);
+        published = top;
+        publishedVersion = version;
+        if (!delta.changed().isEmpty() || !delta.removed().isEmpty()) {
+            clients.send(frame("delta", delta));
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.leaderboard.stream-keepalive-ms:15000}",
+            fixedDelayString = "${app.leaderboard.stream-keepalive-ms:15000}")
+    void keepAlive() {
+        clients.keepAlive();
+    }
+
+    /** Rows best first with their rank; equal scores share one, like {@link HighScoreBoard}. */
+    static List<RankedRowDto> ranked(List<LeaderboardRowDto> rows) {
+        List<RankedRowDto> ranked = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            LeaderboardRowDto row = rows.get(i);
+            int rank =
+                    i > 0 && ranked.get(i - 1).score() == row.getScore()
+                            ? ranked.get(i - 1).rank()
+                            : i + 1;
+            ranked.add(new RankedRowDto(rank, row.getPlayer(), row.getScore()));
+        }
+        return ranked;
+    }
+
+    /** The rows of {@code after} new or different from {@code before}, and who left. */
+    static LeaderboardDeltaDto diff(List<RankedRowDto> before, List<RankedRowDto> after) {
+        Map<String, RankedRowDto> previous = new HashMap<>(before.size() * 2);
+        for (RankedRowDto row : before) previous.put(row.player(), row);
+        List<RankedRowDto> changed = new ArrayList<>();
+        Set<String> present = new HashSet<>(after.size() * 2);
+        for (RankedRowDto row : after) {
+            present.add(row.player());
+            if (!row.equals(previous.get(row.player()))) changed.add(row);
+        }
+        List<String> removed = new ArrayList<>();
+        for (RankedRowDto row : before) {
+            if (!present.contains(row.player())) removed.add(row.player());
+        }
+        return new LeaderboardDeltaDto(changed, removed);
+    }
+
+    // serialized here, once per change, not once per client
+    private Set<DataWithMediaType> frame(String name, Object payload) {
+        try {
+            return SseEmitter.event()
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(payload))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + name, e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ch.multispace.backend.score;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/** One player's outcome of one finished match; a future {@code game_results} row. */
+public record MatchResult(
+        UUID roomId,
+        UUID userId,
+        long finalScore,
+        int waveReached,
+        int enemiesKilled,
+        OffsetDateTime finishedAt) {}
@@ -0,0 +1,218 @@
+package ch.multispace.backend.score;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Match history: every finished match's per-player results, written to {@code game_results}.
+ *
+ * <p>{@link #record} only offers the results to a bounded queue and returns, so the thread that
+ * ended the room never waits on the database. A writer thread drains the queue in JDBC batches of
+ * up to {@code app.results.max-batch} rows, as soon as there is anything to write and at most
+ * {@code app.results.flush-interval-ms} apart when idle. The queue is the backpressure: when the
+ * database falls behind by {@code app.results.queue-capacity} rows, further results are rejected
+ * and counted as dropped rather than allowed to grow the heap or stall a game thread. Each batch is
+ * added to the daily and weekly rollups in the same transaction, see {@link ScoreRollupService}. A
+ * batch the database refuses is retried up to {@code app.results.max-attempts} times, the wait
+ * doubling from {@code app.results.retry-backoff-ms}, and only then counted as failed.
+ */
+@Service
+public class MatchResultWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MatchResultWriter.class);
+
+    // INSERT ... SELECT so a result whose user is gone is skipped instead of failing the batch,
+    // and a match not backed by a game_rooms row (quick play) is stored with no session
+    private static final String INSERT =
+            "INSERT INTO game_results "
+                    + "(id, player_id, session_id, final_score, wave_reached, enemies_killed,"
+                    + " created_at) "
+                    + "SELECT ?, u.id, (SELECT r.room_id FROM game_rooms r WHERE r.room_id = ?),"
+                    + " ?, ?, ?, ? "
+                    + "FROM users u WHERE u.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScoreRollupService scoreRollupService;
+
+    @Value("${app.results.queue-capacity:10000}")
+    private int queueCapacity = 10_000;
+
+    @Value("${app.results.max-batch:500}")
+    private int maxBatch = 500;
+
+    @Value("${app.results.flush-interval-ms:500}")
+    private long flushIntervalMs = 500;
+
+    @Value("${app.results.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${app.results.retry-backoff-ms:250}")
+    private long retryBackoffMs = 250;
+
+    private BlockingQueue<MatchResult> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public MatchResultWriter(JdbcTemplate jdbcTemplate, ScoreRollupService scoreRollupService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scoreRollupService = scoreRollupService;
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = Thread.ofPlatform().name("match-result-writer").daemon().start(this::writeLoop);
+    }
+
+    /** Stops the writer and writes whatever is still queued on the calling thread. */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5_000);
+        flush();
+    }
+
+    /**
+     * Queue the results of one finished match. Never blocks.
+     *
+     * @return false if the queue was full and some of them were dropped
+     */
+    public boolean record(List<MatchResult> results) {
+        boolean all = true;
+        for (MatchResult result : results) {
+            if (queue.offer(result)) {
+                recorded.incrementAndGet();
+            } else {
+                all = false;
+                // log the first drop of a burst, not every one of them
+                if (dropped.getAndIncrement() % 1_000 == 0) {
+                    LOGGER.warn(
+                            "Match result queue full ({} rows), dropping results; {} dropped so far",
+                            queueCapacity,
+                            dropped.get());
+                }
+            }
+        }
+        return all;
+    }
+
+    public Stats getStats() {
+        return new Stats(queue.size(), recorded.get(), written.get(), dropped.get(), failed.get());
+    }
+
+    private void writeLoop() {
+        List<MatchResult> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                MatchResult first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Write everything queued so far on the calling thread. */
+    void flush() {
+        List<MatchResult> batch = new ArrayList<>(maxBatch);
+        while (queue.drainTo(batch, maxBatch) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<MatchResult> batch) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // the insert and the rollups share one transaction, so a retry starts clean
+                scoreRollupService.recordResults(batch, () -> insert(batch));
+                written.addAndGet(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !backOff(backoffMs)) {
+                    failed.addAndGet(batch.size());
+                    LOGGER.error(
+                            "Dropping {} match results after {} attempts: {}",
+                            batch.size(),
+                            attempt,
+                            e.getMessage());
+                    return;
+                }
+                LOGGER.warn(
+                        "Failed to write {} match results, retrying in {} ms: {}",
+                        batch.size(),
+                        backoffMs,
+                        e.getMessage());
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    /** Wait before the next attempt; false if interrupted, i.e. shutting down. */
+    private static boolean backOff(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void insert(List<MatchResult> batch) {
+        jdbcTemplate.batchUpdate(
+                INSERT,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        MatchResult r = batch.get(i);
+                        ps.setObject(1, UUID.randomUUID());
+                        ps.setObject(2, r.roomId());
+                        ps.setInt(3, (int) Math.min(Integer.MAX_VALUE, r.finalScore()));
+                        ps.setInt(4, r.waveReached());
+                        ps.setInt(5, r.enemiesKilled());
+                        ps.setObject(6, r.finishedAt());
+                        ps.setObject(7, r.userId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                });
+    }
+
+    /**
+     * Queue depth now, and rows recorded, written, dropped for a full queue, and lost to errors.
+     */
+    public record Stats(int queued, long recorded, long written, long dropped, long failed) {}
+}
@@ -0,0 +1,103 @@
+package ch.multispace.backend.score;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * An ordered set that also knows every element's position: a treap whose nodes count their subtree,
+ * so adding, removing and {@link #countBefore} are all O(log n) expected. Not thread-safe; {@link
+ * HighScoreBoard} guards it.
+ */
+final class RankTree<T> {
+
+    private final Comparator<? super T> order;
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<T> root;
+
+    RankTree(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /** Add {@code value}, which must not be in the tree yet. */
+    void add(T value) {
+        Split<T> split = split(root, value, false);
+        root = merge(merge(split.left(), new Node<>(value, random.nextInt())), split.right());
+    }
+
+    /** Remove {@code value}; false if it was not in the tree. */
+    boolean remove(T value) {
+        Split<T> below = split(root, value, false);
+        Split<T> rest = split(below.right(), value, true);
+        root = merge(below.left(), rest.right());
+        return rest.left() != null;
+    }
+
+    /** How many elements order strictly before {@code value}; it need not be in the tree. */
+    int countBefore(T value) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (order.compare(node.value, value) < 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /** Elements before {@code value} (or up to and including it) on the left, the rest right. */
+    private Split<T> split(Node<T> node, T value, boolean inclusive) {
+        if (node == null) return new Split<>(null, null);
+        int cmp = order.compare(node.value, value);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Split<T> split = split(node.right, value, inclusive);
+            node.right = split.left();
+            return new Split<>(node.update(), split.right());
+        }
+        Split<T> split = split(node.left, value, inclusive);
+        node.left = split.right();
+        return new Split<>(split.left(), node.update());
+    }
+
+    /** Join two trees where every element of {@code left} orders before every one of right. */
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private record Split<T>(Node<T> left, Node<T> right) {}
+
+    private static final class Node<T> {
+        final T value;
+        final int priority;
+        int size = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+
+        Node<T> update() {
+            size = size(left) + size(right) + 1;
+            return this;
+        }
+    }
+}
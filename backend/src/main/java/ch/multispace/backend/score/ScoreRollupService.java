@@ -0,0 +1,262 @@
+package ch.multispace.backend.score;
+
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.model.RollupPeriod;
+import ch.multispace.backend.repositories.ScoreRollupRepository;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Daily and weekly leaderboards, served from {@code score_rollups}: one row per window and user
+ * holding that user's best and summed scores in the window. The all-time board is the players table
+ * itself, see {@link ScoreService}.
+ *
+ * <p>Rollups are maintained incrementally: {@link MatchResultWriter} hands every batch of results
+ * to {@link #recordResults}, which inserts them and adds them to their windows in one transaction,
+ * so a window never counts a result that is not in {@code game_results} or misses one that is.
+ * {@link #rebuild} recomputes windows from {@code game_results} instead, several at a time, to
+ * repair or backfill them. On this node a rebuild and a batch of new results never interleave; a
+ * rebuild of the current window while other nodes are writing can still miss their results until
+ * the window is rebuilt again, so rebuild closed windows where possible.
+ */
+@Service
+public class ScoreRollupService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScoreRollupService.class);
+
+    // same shape as ScoreService's players upsert; joining users drops results of deleted accounts
+    private static final String MERGE_HEAD =
+            "MERGE INTO score_rollups r USING ("
+                    + "SELECT v.period, v.period_start, v.user_id, v.best, v.total, v.games "
+                    + "FROM (VALUES ";
+    private static final String MERGE_TAIL =
+            ") AS v(period, period_start, user_id, best, total, games) "
+                    + "JOIN users u ON u.id = v.user_id) s "
+                    + "ON r.period = s.period AND r.period_start = s.period_start"
+                    + " AND r.user_id = s.user_id "
+                    + "WHEN MATCHED THEN UPDATE SET "
+                    + "best_score = GREATEST(r.best_score, s.best), "
+                    + "total_score = r.total_score + s.total, "
+                    + "games_played = r.games_played + s.games "
+                    + "WHEN NOT MATCHED THEN INSERT "
+                    + "(period, period_start, user_id, best_score, total_score, games_played) "
+                    + "VALUES (s.period, s.period_start, s.user_id, s.best, s.total, s.games)";
+
+    private static final String DELETE_WINDOW =
+            "DELETE FROM score_rollups WHERE period = ? AND period_start = ?";
+
+    // reads only the window's slice of game_results_created_at_idx
+    private static final String REBUILD_WINDOW =
+            "INSERT INTO score_rollups "
+                    + "(period, period_start, user_id, best_score, total_score, games_played) "
+                    + "SELECT ?, ?, g.player_id, MAX(COALESCE(g.final_score, 0)),"
+                    + " SUM(COALESCE(g.final_score, 0)), COUNT(*) "
+                    + "FROM game_results g "
+                    + "WHERE g.player_id IS NOT NULL AND g.created_at >= ? AND g.created_at < ? "
+                    + "GROUP BY g.player_id";
+
+    private final ScoreRollupRepository scoreRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // new results take it exclusively, window rebuilds shared: rebuilds run side by side, but
+    // never while a batch that could land in their window is being counted
+    private final ReadWriteLock windowLock = new ReentrantReadWriteLock();
+
+    @Value("${app.leaderboard.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${app.rollups.rebuild-threads:4}")
+    private int rebuildThreads = 4;
+
+    @Value("${app.rollups.rebuild-days-on-start:0}")
+    private int rebuildDaysOnStart = 0;
+
+    public ScoreRollupService(
+            ScoreRollupRepository scoreRollupRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.scoreRollupRepository = scoreRollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** The best {@code limit} scores of the window containing {@code date} (today if null) */
+    public List<LeaderboardRowDto> top(RollupPeriod period, LocalDate date, Integer limit) {
+        LocalDate day = date != null ? date : LocalDate.now(ZoneOffset.UTC);
+        int size = limit == null ? maxPageSize : Math.clamp(limit, 1, maxPageSize);
+        return scoreRollupRepository.findTop(period, period.startOf(day), Limit.of(size));
+    }
+
+    /**
+     * Run {@code insertResults}, which writes {@code results} to {@code game_results}, and add the
+     * same results to their daily and weekly windows, in one transaction.
+     */
+    void recordResults(List<MatchResult> results, Runnable insertResults) {
+        windowLock.writeLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(
+                    _ -> {
+                        insertResults.run();
+                        merge(results);
+                    });
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+    }
+
+    private void merge(List<MatchResult> results) {
+        Map<WindowKey, Totals> windows = new LinkedHashMap<>();
+        for (MatchResult result : results) {
+            int score = (int) Math.min(Integer.MAX_VALUE, result.finalScore());
+            for (RollupPeriod period : RollupPeriod.values()) {
+                WindowKey key =
+                        new WindowKey(period, period.startOf(result.finishedAt()), result.userId());
+                windows.computeIfAbsent(key, _ -> new Totals()).add(score);
+            }
+        }
+        StringBuilder sql = new StringBuilder(MERGE_HEAD);
+        List<Object> args = new ArrayList<>(windows.size() * 6);
+        windows.forEach(
+                (key, totals) -> {
+                    if (!args.isEmpty()) sql.append(", ");
+                    sql.append("(?, ?, ?, ?, ?, ?)");
+                    args.add(key.period().name());
+                    args.add(key.start());
+                    args.add(key.userId());
+                    args.add(totals.best);
+                    args.add(totals.total);
+                    args.add(totals.games);
+                });
+        sql.append(MERGE_TAIL);
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Recompute every {@code period} window from the one containing {@code from} to the one
+     * containing {@code to} from {@code game_results}, up to {@code app.rollups.rebuild-threads}
+     * windows at a time, each in its own transaction.
+     *
+     * @return the number of windows rebuilt
+     * @throws IllegalStateException if any window failed; the others are rebuilt regardless
+     */
+    public int rebuild(RollupPeriod period, LocalDate from, LocalDate to) {
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = period.startOf(from);
+                !start.isAfter(to);
+                start = period.next(start)) {
+            starts.add(start);
+        }
+        int failed = 0;
+        try (ExecutorService pool =
+                Executors.newFixedThreadPool(
+                        Math.max(1, rebuildThreads),
+                        Thread.ofPlatform().name("rollup-rebuild-", 0).daemon().factory())) {
+            List<Future<?>> windows = new ArrayList<>(starts.size());
+            for (LocalDate start : starts) {
+                windows.add(pool.submit(() -> rebuildWindow(period, start)));
+            }
+            for (int i = 0; i < windows.size(); i++) {
+                try {
+                    windows.get(i).get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    LOGGER.warn(
+                            "Failed to rebuild {} rollup of {}: {}",
+                            period,
+                            starts.get(i),
+                            e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pool.shutdownNow();
+                    throw new IllegalStateException("Interrupted while rebuilding rollups", e);
+                }
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(
+                    "Failed to rebuild " + failed + " of " + starts.size() + " rollup windows");
+        }
+        return starts.size();
+    }
+
+    private void rebuildWindow(RollupPeriod period, LocalDate start) {
+        windowLock.readLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(
+                    _ -> {
+                        jdbcTemplate.update(DELETE_WINDOW, period.name(), start);
+                        jdbcTemplate.update(
+                                REBUILD_WINDOW,
+                                period.name(),
+                                start,
+                                start.atStartOfDay().atOffset(ZoneOffset.UTC),
+                                period.next(start).atStartOfDay().atOffset(ZoneOffset.UTC));
+                    });
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Backfill the last {@code app.rollups.rebuild-days-on-start} days, e.g. after restoring {@code
+     * game_results} from a backup; off by default. Runs in the background once the application is
+     * serving.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildOnStart() {
+        if (rebuildDaysOnStart <= 0) return;
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = today.minusDays(rebuildDaysOnStart - 1L);
+        Thread.ofPlatform()
+                .name("rollup-rebuild")
+                .daemon()
+                .start(
+                        () -> {
+                            try {
+                                for (RollupPeriod period : RollupPeriod.values()) {
+                                    int windows = rebuild(period, from, today);
+                                    LOGGER.info("Rebuilt {} {} rollup windows", windows, period);
+                                }
+                            } catch (RuntimeException e) {
+                                LOGGER.error("Rollup rebuild failed", e);
+                            }
+                        });
+    }
+
+    private record WindowKey(RollupPeriod period, LocalDate start, UUID userId) {}
+
+    /** One user's results in one window, from one batch. */
+    private static final class Totals {
+        int best;
+        long total;
+        int games;
+
+        void add(int score) {
+            best = Math.max(best, score);
+            total += score;
+            games++;
+        }
+    }
+}
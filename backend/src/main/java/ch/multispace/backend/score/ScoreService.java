@@ -1,68 +1,309 @@
 package ch.multispace.backend.score;
 
+import ch.multispace.backend.dtos.LeaderboardPageDto;
 import ch.multispace.backend.dtos.LeaderboardRowDto;
-import ch.multispace.backend.model.PlayerEntity;
-import ch.multispace.backend.model.User;
+import ch.multispace.backend.dtos.PlayerRankDto;
+import ch.multispace.backend.exceptions.BadRequestException;
+import ch.multispace.backend.exceptions.NotFoundException;
 import ch.multispace.backend.repositories.PlayerRepository;
-import ch.multispace.backend.repositories.UserRepository;
+import ch.multispace.backend.repositories.PlayerRepository.HighScoreRow;
+import ch.multispace.backend.services.IdentityCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+/**
+ * Player stats from finished rooms. Results are queued and applied by a writer thread at most
+ * {@code app.scores.flush-interval-ms} later, as one set-based statement per batch: the database
+ * adds to {@code total_score} and {@code games_played} and takes the greater {@code high_score}
+ * itself, so two rooms finishing at once for the same user - here or on another node - can no
+ * longer overwrite each other's increments.
+ */
 @Service
 @RequiredArgsConstructor
 public class ScoreService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ScoreService.class);
 
+    // MERGE rather than INSERT ... ON CONFLICT: PostgreSQL 15+ and H2 both accept it. Joining
+    // users drops results of accounts deleted since the game; the update is a single row write
+    // under the row lock, so concurrent batches add up instead of racing.
+    private static final String MERGE_HEAD =
+            "MERGE INTO players p USING ("
+                    + "SELECT v.user_id, v.new_id, v.score, v.games, v.best FROM (VALUES ";
+    private static final String MERGE_TAIL =
+            ") AS v(user_id, new_id, score, games, best) JOIN users u ON u.id = v.user_id) s "
+                    + "ON p.user_id = s.user_id "
+                    + "WHEN MATCHED THEN UPDATE SET "
+                    + "total_score = COALESCE(p.total_score, 0) + s.score, "
+                    + "games_played = COALESCE(p.games_played, 0) + s.games, "
+                    + "high_score = GREATEST(COALESCE(p.high_score, 0), s.best) "
+                    + "WHEN NOT MATCHED THEN INSERT "
+                    + "(id, user_id, total_score, games_played, high_score) "
+                    + "VALUES (s.new_id, s.user_id, s.score, s.games, s.best)";
+
+    private static final int DEFAULT_NEIGHBOURS = 2;
+    private static final int MAX_NEIGHBOURS = 10;
+
+    private final HighScoreBoard highScoreBoard;
     private final PlayerRepository playerRepository;
-    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdentityCache identityCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.scores.flush-interval-ms:200}")
+    private long flushIntervalMs = 200;
+
+    @Value("${app.scores.max-batch:1000}")
+    private int maxBatch = 1000;
+
+    @Value("${app.leaderboard.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    // results not yet written, already summed per user; guarded by this
+    private final Map<UUID, PendingScore> pending = new LinkedHashMap<>();
 
-    /** List high scores (descending) */
-    public List<LeaderboardRowDto> listHighScores() {
-        return playerRepository.listHighScores();
+    private Thread writer;
+    private volatile boolean running;
+    private Timer writeTimer;
+
+    @PostConstruct
+    void start() {
+        writeTimer =
+                Timer.builder("scores.write")
+                        .description("Time to write one batch of results to the players table")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+        Gauge.builder("scores.pending", this, ScoreService::getPendingCount)
+                .description("Players with results not yet written")
+                .register(meterRegistry);
+        running = true;
+        writer = Thread.ofPlatform().name("score-writer").daemon().start(this::writeLoop);
+    }
+
+    /** Stops the writer and writes whatever is still queued on the calling thread. */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5_000);
+        flush();
+    }
+
+    /** The best {@code limit} high scores (descending), from the in-memory board */
+    public List<LeaderboardRowDto> topHighScores(Integer limit) {
+        return highScoreBoard.top(pageSize(limit));
     }
 
     /**
-     * Persist final scores for a finished/closed game room. Updates each player's totalScore,
-     * gamesPlayed, and highScore. The map key must be the User.id (UUID) and value is the final
-     * score (long).
+     * One page of high scores (descending), read from the database by keyset: {@code after} is the
+     * {@code next} cursor of the previous page, or null for the first one.
      */
-    public void persistRoomScores(Map<UUID, Long> userScores) {
-        if (userScores == null || userScores.isEmpty()) return;
+    public LeaderboardPageDto highScorePage(String after, Integer size) {
+        int pageSize = pageSize(size);
+        // one extra row tells whether there is a next page without a count
+        List<HighScoreRow> rows;
+        if (after == null || after.isBlank()) {
+            rows = playerRepository.findHighScores(Limit.of(pageSize + 1));
+        } else {
+            Cursor cursor = Cursor.decode(after);
+            rows =
+                    playerRepository.findHighScoresAfter(
+                            cursor.highScore(), cursor.id(), Limit.of(pageSize + 1));
+        }
+        boolean more = rows.size() > pageSize;
+        if (more) rows = rows.subList(0, pageSize);
 
+        List<LeaderboardRowDto> page = new ArrayList<>(rows.size());
+        for (HighScoreRow row : rows) {
+            page.add(new LeaderboardRowDto(row.getUsername(), highScoreOf(row)));
+        }
+        String next = null;
+        if (more) {
+            HighScoreRow last = rows.getLast();
+            next = new Cursor(highScoreOf(last), last.getId()).encode();
+        }
+        return new LeaderboardPageDto(page, next);
+    }
+
+    /**
+     * Where {@code userId} ranks on the board, with up to {@code neighbours} (default 2, at most
+     * 10) rows either side, from the in-memory board's rank tree.
+     */
+    public PlayerRankDto rankOf(UUID userId, Integer neighbours) {
+        int n = neighbours == null ? DEFAULT_NEIGHBOURS : Math.clamp(neighbours, 0, MAX_NEIGHBOURS);
+        return highScoreBoard
+                .rankOf(userId, n)
+                .or(
+                        () -> {
+                            // a profile created since the last reload, e.g. by another node
+                            highScoreBoard.recordBests(Map.of(userId, 0));
+                            return highScoreBoard.rankOf(userId, n);
+                        })
+                .orElseThrow(() -> new NotFoundException("Player not on the leaderboard"));
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null) return maxPageSize;
+        return Math.clamp(requested, 1, maxPageSize);
+    }
+
+    private static int highScoreOf(HighScoreRow row) {
+        return row.getHighScore() != null ? row.getHighScore() : 0;
+    }
+
+    /**
+     * Queue the final scores of a finished/closed game room. Each player's totalScore, gamesPlayed,
+     * and highScore are updated on the next flush. The map key must be the User.id (UUID) and value
+     * is the final score (long).
+     */
+    public synchronized void persistRoomScores(Map<UUID, Long> userScores) {
+        if (userScores == null || userScores.isEmpty()) return;
         userScores.forEach(
+                (userId, score) ->
+                        pending.computeIfAbsent(userId, _ -> new PendingScore())
+                                .add(score != null ? score : 0L));
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                Thread.sleep(flushIntervalMs);
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Score flush failed", e);
+            }
+        }
+    }
+
+    /** Write everything queued so far, {@code app.scores.max-batch} users per statement. */
+    void flush() {
+        Map<UUID, PendingScore> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+            try {
+                long start = System.nanoTime();
+                int written = write(batch);
+                writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                identityCache.playersChanged(batch.keySet());
+                if (written < batch.size()) {
+                    LOGGER.warn("Dropped scores of {} unknown users", batch.size() - written);
+                }
+                Map<UUID, Integer> bests = new HashMap<>(batch.size() * 2);
+                batch.forEach((userId, score) -> bests.put(userId, clampedBest(score)));
+                highScoreBoard.recordBests(bests);
+            } catch (RuntimeException e) {
+                LOGGER.warn(
+                        "Failed to persist scores of {} users, retrying on the next flush: {}",
+                        batch.size(),
+                        e.getMessage());
+                requeue(batch);
+                return;
+            }
+        }
+    }
+
+    private synchronized Map<UUID, PendingScore> takeBatch() {
+        Map<UUID, PendingScore> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<UUID, PendingScore>> it = pending.entrySet().iterator();
+        while (it.hasNext() && batch.size() < maxBatch) {
+            Map.Entry<UUID, PendingScore> entry = it.next();
+            batch.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+        return batch;
+    }
+
+    private synchronized void requeue(Map<UUID, PendingScore> batch) {
+        batch.forEach(
+                (userId, score) ->
+                        pending.computeIfAbsent(userId, _ -> new PendingScore()).merge(score));
+    }
+
+    private int write(Map<UUID, PendingScore> batch) {
+        StringBuilder sql = new StringBuilder(MERGE_HEAD);
+        List<Object> args = new ArrayList<>(batch.size() * 5);
+        batch.forEach(
                 (userId, score) -> {
-                    try {
-                        User user = userRepository.findById(userId).orElse(null);
-                        if (user == null) {
-                            LOGGER.warn("Cannot persist score for unknown user {}", userId);
-                            return;
-                        }
-                        PlayerEntity player = playerRepository.findByUser(user).orElse(null);
-                        if (player == null) {
-                            // create a new player profile if somehow missing
-                            player = PlayerEntity.builder().user(user).build();
-                        }
-
-                        long s = score != null ? score : 0L;
-                        player.setTotalScore(player.getTotalScore() + s);
-                        player.setGamesPlayed(player.getGamesPlayed() + 1);
-                        int high = player.getHighScore();
-                        if (s > high) {
-                            player.setHighScore((int) Math.min(Integer.MAX_VALUE, s));
-                        }
-                        playerRepository.save(player);
-                    } catch (Exception e) {
-                        LOGGER.warn(
-                                "Failed to persist room score for user {}: {}",
-                                userId,
-                                e.getMessage());
-                    }
+                    if (!args.isEmpty()) sql.append(", ");
+                    sql.append("(?, ?, ?, ?, ?)");
+                    args.add(userId);
+                    args.add(UUID.randomUUID());
+                    args.add(score.total);
+                    args.add(score.games);
+                    args.add(clampedBest(score));
                 });
+        sql.append(MERGE_TAIL);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /** Position after the row with this score and player id; opaque to clients. */
+    private record Cursor(int highScore, UUID id) {
+        String encode() {
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString((highScore + ":" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw =
+                        new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int colon = raw.indexOf(':');
+                return new Cursor(
+                        Integer.parseInt(raw.substring(0, colon)),
+                        UUID.fromString(raw.substring(colon + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new BadRequestException("Invalid leaderboard cursor");
+            }
+        }
+    }
+
+    private static int clampedBest(PendingScore score) {
+        return (int) Math.min(Integer.MAX_VALUE, score.best);
+    }
+
+    /** One user's results summed over every room that finished since the last flush. */
+    private static final class PendingScore {
+        long total;
+        int games;
+        long best;
+
+        void add(long score) {
+            total += score;
+            games++;
+            best = Math.max(best, score);
+        }
+
+        void merge(PendingScore other) {
+            total += other.total;
+            games += other.games;
+            best = Math.max(best, other.best);
+        }
     }
 }
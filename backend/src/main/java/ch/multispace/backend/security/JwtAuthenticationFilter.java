@@ -6,20 +6,30 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+/**
+ * Authenticates a request from its bearer token alone. The principal is built from the verified
+ * claims - the token is signed by us, so its subject is the account it was issued to - and no
+ * account is loaded; code that needs the account resolves it from the principal's email. Revoked
+ * tokens are checked in memory, see {@link TokenRevocationService}.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -35,14 +45,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String token = authHeader.substring(7);
 
         try {
-            // Extract username from token
-            final String username = jwtService.extractUsername(token);
-            if (username != null
+            JwtService.VerifiedToken verified = jwtService.verify(token);
+            tokenRevocationService.requireNotRevoked(verified);
+            if (verified.subject() != null
                     && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                // Validate token or throw exception if invalid/expired
-                jwtService.validateToken(token, userDetails);
+                // same shape UserDetailsServiceImpl gives, without the password hash
+                UserDetails userDetails =
+                        User.withUsername(verified.subject())
+                                .password("")
+                                .authorities("USER")
+                                .build();
 
                 // Set authentication in Spring Security context
                 UsernamePasswordAuthenticationToken authToken =
@@ -54,7 +66,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         } catch (JwtService.InvalidJwtException e) {
             // Token invalid → do not authenticate, just proceed (request will be rejected later)
-            System.out.println("Invalid JWT: {}" + e.getMessage());
+            LOGGER.debug("Invalid JWT: {}", e.getMessage());
         }
 
         filterChain.doFilter(request, response);
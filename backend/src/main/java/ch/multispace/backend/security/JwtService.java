@@ -1,24 +1,33 @@
 package ch.multispace.backend.security;
 
+import ch.multispace.backend.services.BoundedCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-/** Service for generating, validating, and extracting JWTs for both HTTP and WebSocket usage. */
+/**
+ * Service for generating, validating, and extracting JWTs for both HTTP and WebSocket usage.
+ *
+ * <p>The signing key and parser are built once, at startup. A token is parsed and its signature
+ * checked the first time it is seen; the result is kept in a small LRU ({@code
+ * jwt.verified-cache-size}) until the token expires, so a client repeating its token costs a hash
+ * lookup per request rather than an HMAC and a JSON parse.
+ */
 @Service
 public class JwtService {
 
@@ -32,6 +41,13 @@ public class JwtService {
     @Value("${jwt.expiration-ms:14400000}")
     private long expirationMs = 14400000L; // 4h; also the value when constructed outside Spring
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize = 10_000;
+
+    private Key signingKey;
+    private JwtParser parser;
+    private BoundedCache<String, VerifiedToken> verified;
+
     // ----------------------
     // Token Generation
     // ----------------------
@@ -48,9 +64,10 @@ public class JwtService {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(userDetails.getUsername())
+                .setId(UUID.randomUUID().toString()) // what a logout revokes
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -70,69 +87,51 @@ public class JwtService {
     // Token Validation
     // ----------------------
 
-    /** Validates token against a UserDetails object for standard HTTP authentication. */
-    public void validateToken(String token, UserDetails userDetails) throws InvalidJwtException {
-        String username = extractUsername(token);
-        if (!username.equals(userDetails.getUsername()) || isTokenExpired(token)) {
-            throw new InvalidJwtException("JWT invalid or expired");
-        }
-    }
-
-    /** Simple validation for WebSocket usage. */
-    public void validateTokenForWebSocket(String token) throws InvalidJwtException {
-        if (isTokenExpired(token)) {
+    /**
+     * The token's subject, userId claim and expiry, if it was signed with our key and has not
+     * expired. Parsed once per token; repeats are answered from the verified-token cache.
+     */
+    public VerifiedToken verify(String token) throws InvalidJwtException {
+        VerifiedToken result = verified.get(token, this::parse);
+        // a cached token may have expired since it was parsed
+        if (!result.expiresAt().after(new Date())) {
             throw new InvalidJwtException("JWT expired");
         }
+        return result;
     }
 
-    // ----------------------
-    // Token Extraction
-    // ----------------------
-
     /** Extracts the subject (username/email) from the token. */
     public String extractUsername(String token) throws InvalidJwtException {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    /** Generic extraction method using a claims resolver function. */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver)
-            throws InvalidJwtException {
-        return claimsResolver.apply(extractAllClaims(token));
+        return verify(token).subject();
     }
 
-    /** Extracts a specific claim for WebSocket usage (e.g., userId). */
-    public String extractClaimForWebSocket(String token, String claimName)
-            throws InvalidJwtException {
-        Object claim = extractAllClaims(token).get(claimName);
-        return claim != null ? claim.toString() : null;
+    public BoundedCache.Stats verifiedTokenStats() {
+        return verified.stats();
     }
 
-    /** Extracts all claims from a token, throwing InvalidJwtException on failure. */
-    private Claims extractAllClaims(String token) throws InvalidJwtException {
+    private VerifiedToken parse(String token) throws InvalidJwtException {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Object userId = claims.get("userId");
+            return new VerifiedToken(
+                    claims.getId(),
+                    claims.getSubject(),
+                    userId != null ? userId.toString() : null,
+                    claims.getExpiration());
         } catch (ExpiredJwtException e) {
             throw new InvalidJwtException("JWT expired", e);
-        } catch (JwtException e) {
+        } catch (JwtException | IllegalArgumentException e) {
             throw new InvalidJwtException("Invalid JWT", e);
         }
     }
 
-    private boolean isTokenExpired(String token) throws InvalidJwtException {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
-    }
-
     // ----------------------
     // Key Generation
     // ----------------------
 
     /**
-     * Fails application startup rather than allowing a weak or absent signing key. Package-private
-     * so the test can invoke it directly.
+     * Fails application startup rather than allowing a weak or absent signing key, then builds the
+     * key, parser and cache. Package-private so the test can invoke it directly.
      */
     @PostConstruct
     void validateKeyOnStartup() {
@@ -152,11 +151,17 @@ public class JwtService {
                             + " bytes for HS256; got "
                             + length);
         }
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        // no entry outlives the longest-lived token; verify() checks each token's own expiry
+        verified = new BoundedCache<>(verifiedCacheSize, Duration.ofMillis(expirationMs));
     }
 
-    private Key getSignInKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-    }
+    /**
+     * What a valid token says: its ID (null for tokens issued before IDs were), the login email,
+     * the userId claim (null if absent) and its expiry.
+     */
+    public record VerifiedToken(String tokenId, String subject, String userId, Date expiresAt) {}
 
     // ----------------------
     // Exception
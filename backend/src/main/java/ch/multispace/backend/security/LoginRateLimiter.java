@@ -0,0 +1,108 @@
+package ch.multispace.backend.security;
+
+import ch.multispace.backend.exceptions.TooManyRequestsException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding-window limits on login and registration attempts, per client address and per account,
+ * kept in memory on each node. An attempt over either limit is refused with a {@link
+ * TooManyRequestsException} before any password is hashed, so a credential-stuffing run against one
+ * account, or from one address, costs the server next to nothing.
+ *
+ * <p>Each key counts attempts in the current window of {@code app.auth.rate.window-seconds} and the
+ * one before, weighted by how much of it still overlaps the sliding window: a close estimate of the
+ * attempts in the last window-seconds in two counters, without a timestamp per attempt. Refused
+ * attempts are not counted. Keys idle for two windows are dropped every minute.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Map<String, SlidingWindow> byAddress = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindow> byAccount = new ConcurrentHashMap<>();
+
+    @Value("${app.auth.rate.window-seconds:60}")
+    private long windowSeconds = 60;
+
+    @Value("${app.auth.rate.per-address:30}")
+    private int perAddress = 30;
+
+    @Value("${app.auth.rate.per-account:10}")
+    private int perAccount = 10;
+
+    /** Count a login attempt, or throw if the address or the account is over its limit. */
+    public void acquireLogin(String address, String account) {
+        acquire(byAddress, address, perAddress);
+        if (account != null) acquire(byAccount, account.toLowerCase(Locale.ROOT), perAccount);
+    }
+
+    /** Count a registration attempt, or throw if the address is over its limit. */
+    public void acquireRegistration(String address) {
+        acquire(byAddress, address, perAddress);
+    }
+
+    private void acquire(Map<String, SlidingWindow> windows, String key, int limit) {
+        long now = System.nanoTime();
+        long wait =
+                windows.computeIfAbsent(
+                                key,
+                                _ ->
+                                        new SlidingWindow(
+                                                TimeUnit.SECONDS.toNanos(windowSeconds), now))
+                        .tryAcquire(limit, now);
+        if (wait > 0) {
+            throw new TooManyRequestsException(
+                    "Too many attempts, try again later",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999)));
+        }
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000)
+    void purge() {
+        long now = System.nanoTime();
+        byAddress.values().removeIf(window -> window.idle(now));
+        byAccount.values().removeIf(window -> window.idle(now));
+    }
+
+    /** Attempts in the current and the previous fixed window of one key. */
+    static final class SlidingWindow {
+        private final long windowNanos;
+        // guarded by this
+        private long start;
+        private int current;
+        private int previous;
+
+        SlidingWindow(long windowNanos, long now) {
+            this.windowNanos = windowNanos;
+            this.start = now;
+        }
+
+        /** 0 if the attempt is admitted and counted, else nanoseconds until one would be. */
+        synchronized long tryAcquire(int limit, long now) {
+            advance(now);
+            double overlap = 1 - (now - start) / (double) windowNanos;
+            if (previous * overlap + current + 1 > limit) {
+                return start + windowNanos - now;
+            }
+            current++;
+            return 0;
+        }
+
+        synchronized boolean idle(long now) {
+            return now - start >= 2 * windowNanos;
+        }
+
+        private void advance(long now) {
+            long elapsed = (now - start) / windowNanos;
+            if (elapsed == 0) return;
+            previous = elapsed == 1 ? current : 0;
+            current = 0;
+            start += elapsed * windowNanos;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ch.multispace.backend.security;
+
+import ch.multispace.backend.dtos.PasswordHashStatsDto;
+import ch.multispace.backend.exceptions.TooManyRequestsException;
+import ch.multispace.backend.game.LatencyHistogram;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * The application's {@link PasswordEncoder}: BCrypt, run on {@code app.auth.hash-threads} threads
+ * of its own rather than on the request thread. Each hash costs tens of milliseconds of CPU, so a
+ * burst of logins - or a credential-stuffing run - hashing on every Tomcat thread would take the
+ * cores the game tick needs. Here at most that many hashes run at once, at most {@code
+ * app.auth.hash-queue} wait, and a login or registration arriving at a full queue is refused at
+ * once with a {@link TooManyRequestsException}, without hashing anything.
+ *
+ * <p>Registration ({@code AuthService}) and login (Spring Security's {@code
+ * DaoAuthenticationProvider}) both hash through this bean.
+ */
+@Component
+public class PasswordHasher implements PasswordEncoder {
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+    private final LatencyHistogram hashTimes = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+
+    @Value("${app.auth.hash-threads:2}")
+    private int hashThreads = 2;
+
+    @Value("${app.auth.hash-queue:32}")
+    private int hashQueue = 32;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        executor =
+                new ThreadPoolExecutor(
+                        hashThreads,
+                        hashThreads,
+                        0,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(hashQueue),
+                        Thread.ofPlatform().name("password-hash-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordHashStatsDto stats() {
+        return new PasswordHashStatsDto(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                rejected.sum(),
+                hashTimes.snapshot());
+    }
+
+    private <T> T hash(Supplier<T> work) {
+        Future<T> result;
+        try {
+            result =
+                    executor.submit(
+                            () -> {
+                                long start = System.nanoTime();
+                                try {
+                                    return work.get();
+                                } finally {
+                                    hashTimes.recordNanos(System.nanoTime() - start);
+                                }
+                            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many sign-ins in progress, try again", 1);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ch.multispace.backend.security;
+
+import ch.multispace.backend.exceptions.UnauthorizedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates an SSE request by hand. The browser's {@code EventSource} cannot set request
+ * headers, so stream endpoints are {@code permitAll()} in {@code SecurityConfig} and accept their
+ * JWT as a {@code ?token=} parameter as well as the usual {@code Authorization} header.
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamTokenVerifier {
+
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+
+    /** Throws unless the token - the parameter, else the bearer header - is valid and in force. */
+    public JwtService.VerifiedToken verify(String token, String authHeader) {
+        if (token == null && authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+        }
+        if (token == null) {
+            throw new UnauthorizedException("Missing token for SSE");
+        }
+        // Validate like WebSocket
+        JwtService.VerifiedToken verified = jwtService.verify(token);
+        tokenRevocationService.requireNotRevoked(verified);
+        return verified;
+    }
+}
@@ -0,0 +1,149 @@
+package ch.multispace.backend.security;
+
+import ch.multispace.backend.model.SessionEntity;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.SessionRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revoked tokens. A logout writes the token's ID to {@code sessions}; every node mirrors that table
+ * in memory, so checking a token on a request is a Bloom filter probe - and, only for the filter's
+ * rare positives, a map lookup - never a query.
+ *
+ * <p>The mirror reads rows newer than its last pass every {@code app.revocation.refresh-ms}, so a
+ * logout on another node takes effect here within that interval; on this node it is immediate. A
+ * full reload every {@code app.revocation.full-reload-ms} drops rows whose token has expired
+ * anyway, from the table and from memory, and starts a fresh filter.
+ *
+ * <p>Tokens issued before tokens carried an ID cannot be revoked; they run out within {@code
+ * jwt.expiration-ms}.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // re-read this far back on each refresh: another node's clock, or a transaction that
+    // committed after we read past its created_at, must not make us skip a row
+    private static final Duration OVERLAP = Duration.ofSeconds(30);
+
+    private final SessionRepository sessionRepository;
+
+    @Value("${app.revocation.expected-tokens:100000}")
+    private int expectedTokens = 100_000;
+
+    private volatile Revoked revoked;
+    private OffsetDateTime
+            readUpTo; // newest created_at read, null before a full read; guarded by this
+
+    public TokenRevocationService(SessionRepository sessionRepository) {
+        this.sessionRepository = sessionRepository;
+    }
+
+    /** Whether this token was revoked; one Bloom probe for the common, not-revoked case. */
+    public boolean isRevoked(JwtService.VerifiedToken token) {
+        String id = token.tokenId();
+        if (id == null) return false;
+        Revoked current = revoked;
+        return current.filter.mightContain(id) && current.expiries.containsKey(id);
+    }
+
+    /** Throws unless the token is still in force. */
+    public void requireNotRevoked(JwtService.VerifiedToken token) {
+        if (isRevoked(token)) throw new JwtService.InvalidJwtException("JWT revoked");
+    }
+
+    /**
+     * Revoke a token of {@code user}: recorded for every node, effective here at once.
+     *
+     * @return false if the token has no ID and cannot be revoked
+     */
+    public boolean revoke(JwtService.VerifiedToken token, User user) {
+        String id = token.tokenId();
+        if (id == null) return false;
+        OffsetDateTime expiresAt = token.expiresAt().toInstant().atOffset(ZoneOffset.UTC);
+        if (sessionRepository.findByToken(id).isEmpty()) {
+            SessionEntity row = new SessionEntity();
+            row.setToken(id);
+            row.setUser(user);
+            row.setExpiresAt(expiresAt);
+            try {
+                sessionRepository.save(row);
+            } catch (DataIntegrityViolationException e) {
+                // the same token logged out twice at once; the other request recorded it
+            }
+        }
+        synchronized (this) {
+            // under the lock: a reload in progress must not swap it out right after
+            revoked.add(id, expiresAt);
+        }
+        return true;
+    }
+
+    @PostConstruct
+    @Scheduled(
+            fixedDelayString = "${app.revocation.full-reload-ms:3600000}",
+            initialDelayString = "${app.revocation.full-reload-ms:3600000}")
+    synchronized void reload() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        int purged = sessionRepository.deleteExpired(now);
+        Revoked fresh = new Revoked(expectedTokens);
+        readUpTo = null;
+        read(fresh, now);
+        revoked = fresh;
+        LOGGER.debug("Loaded {} revoked tokens, purged {} expired", fresh.expiries.size(), purged);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${app.revocation.refresh-ms:5000}",
+            initialDelayString = "${app.revocation.refresh-ms:5000}")
+    synchronized void refresh() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        Revoked current = revoked;
+        current.expiries.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        read(current, now);
+    }
+
+    private void read(Revoked into, OffsetDateTime now) {
+        OffsetDateTime since =
+                readUpTo == null
+                        ? OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+                        : readUpTo.minus(OVERLAP);
+        List<SessionEntity> rows = sessionRepository.findActiveCreatedAfter(since, now);
+        for (SessionEntity row : rows) {
+            into.add(row.getToken(), row.getExpiresAt());
+            if (row.getCreatedAt() != null
+                    && (readUpTo == null || row.getCreatedAt().isAfter(readUpTo))) {
+                readUpTo = row.getCreatedAt();
+            }
+        }
+    }
+
+    /** The revoked token IDs with their expiry, and a Bloom filter over the same IDs. */
+    private static final class Revoked {
+        final BloomFilter filter;
+        final Map<String, OffsetDateTime> expiries = new ConcurrentHashMap<>();
+
+        Revoked(int expected) {
+            filter = new BloomFilter(expected, 0.01);
+        }
+
+        void add(String id, OffsetDateTime expiresAt) {
+            // filter first: a reader that finds the id in the map must also pass the filter
+            filter.add(id);
+            expiries.put(id, expiresAt);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package ch.multispace.backend.security;
 
-import ch.multispace.backend.repositories.UserRepository;
+import ch.multispace.backend.services.IdentityCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,13 +11,13 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final IdentityCache identityCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         var user =
-                userRepository
-                        .findByEmail(email)
+                identityCache
+                        .userByEmail(email)
                         .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
                 .password(user.getPassword())
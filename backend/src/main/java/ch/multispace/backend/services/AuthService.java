@@ -1,10 +1,14 @@
 package ch.multispace.backend.services;
 
+import ch.multispace.backend.exceptions.TooManyRequestsException;
+import ch.multispace.backend.exceptions.UnauthorizedException;
 import ch.multispace.backend.model.PlayerEntity;
 import ch.multispace.backend.model.User;
 import ch.multispace.backend.repositories.PlayerRepository;
 import ch.multispace.backend.repositories.UserRepository;
+import ch.multispace.backend.score.HighScoreBoard;
 import ch.multispace.backend.security.JwtService;
+import ch.multispace.backend.security.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +28,9 @@ public class AuthService {
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authManager;
+    private final HighScoreBoard highScoreBoard;
+    private final IdentityCache identityCache;
+    private final TokenRevocationService tokenRevocationService;
 
     // --- Custom exceptions ---
     public static class DuplicateEmailException extends RuntimeException {
@@ -65,6 +72,8 @@ public class AuthService {
         PlayerEntity player = PlayerEntity.builder().user(user).build();
 
         playerRepository.save(player);
+        highScoreBoard.playerCreated(user.getId(), user.getUsername());
+        identityCache.userSaved(user, player);
 
         return jwtService.generateToken(userDetailsFromUser(user));
     }
@@ -73,20 +82,36 @@ public class AuthService {
     public String login(String email, String password) {
         try {
             authManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+        } catch (TooManyRequestsException e) {
+            throw e; // the password hashing queue is full: not a failed login
         } catch (Exception e) {
             LOGGER.error("Authentication failed: {}", e.getMessage());
             throw new InvalidCredentialsException("Invalid email or password");
         }
 
+        // just loaded by authenticate(), through UserDetailsServiceImpl
         User user =
-                userRepository
-                        .findByEmail(email)
+                identityCache
+                        .userByEmail(email)
                         .orElseThrow(
                                 () -> new InvalidCredentialsException("Invalid email or password"));
 
         return jwtService.generateTokenForWebSocket(userDetailsFromUser(user), user.getId());
     }
 
+    // --- Logout ---
+    /** Revoke the token on every node; it is rejected from then on, even though unexpired. */
+    public void logout(String token) {
+        JwtService.VerifiedToken verified = jwtService.verify(token);
+        User user =
+                identityCache
+                        .userByEmail(verified.subject())
+                        .orElseThrow(() -> new UnauthorizedException("Unknown user"));
+        if (!tokenRevocationService.revoke(verified, user)) {
+            LOGGER.info("Token of {} predates token IDs; it cannot be revoked", user.getId());
+        }
+    }
+
     // --- Helper to create Spring Security UserDetails --- NEEDED?
     private org.springframework.security.core.userdetails.User userDetailsFromUser(User user) {
         return new org.springframework.security.core.userdetails.User(
@@ -0,0 +1,95 @@
+package ch.multispace.backend.services;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small in-process read-through cache: at most {@code maxSize} entries, least recently used
+ * evicted first, each entry dropped {@code ttl} after it was loaded. Absent values are never
+ * cached, so something created right after a miss is found on the next lookup.
+ *
+ * <p>A load that overlaps an invalidation is returned but not stored: it may have read the row
+ * before the write that caused the invalidation.
+ */
+public final class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // access order, so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long invalidations;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /** The cached value, or {@code loader}'s (null for none) if there is no live entry. */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long generation;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits++;
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            generation = invalidations;
+        }
+        // outside the lock: a slow load must not stall lookups of other keys
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (generation == invalidations) store(key, value);
+            }
+        }
+        return value;
+    }
+
+    /** Store a value just written, replacing whatever was cached for {@code key}. */
+    public synchronized void put(K key, V value) {
+        invalidations++;
+        store(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        invalidations++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size());
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    /** Lookups answered from the cache and from the loader, entries evicted, and current size. */
+    public record Stats(long hits, long misses, long evictions, int size) {}
+}
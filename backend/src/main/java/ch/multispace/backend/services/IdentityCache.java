@@ -0,0 +1,95 @@
+package ch.multispace.backend.services;
+
+import ch.multispace.backend.model.PlayerEntity;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.PlayerRepository;
+import ch.multispace.backend.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Users by email and player profiles by user id, cached in memory: every authenticated request,
+ * WebSocket connect and room create or join needs them, and they almost never change. Bounded by
+ * {@code app.identity-cache.max-size} per kind and expired after {@code
+ * app.identity-cache.ttl-seconds}, which is also how long another node's change can take to show
+ * here. Changes made on this node are applied at once: AuthService and PlayerProvisioningService
+ * store what they create, ScoreService drops the profiles each score batch rewrites.
+ *
+ * <p>The entities handed out are detached and shared between threads; treat them as read-only.
+ */
+@Service
+public class IdentityCache {
+
+    private final UserRepository userRepository;
+    private final PlayerRepository playerRepository;
+
+    @Value("${app.identity-cache.max-size:10000}")
+    private int maxSize = 10_000;
+
+    @Value("${app.identity-cache.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    private BoundedCache<String, User> usersByEmail;
+    private BoundedCache<UUID, PlayerEntity> playersByUser;
+
+    public IdentityCache(UserRepository userRepository, PlayerRepository playerRepository) {
+        this.userRepository = userRepository;
+        this.playerRepository = playerRepository;
+    }
+
+    @PostConstruct
+    void start() {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        usersByEmail = new BoundedCache<>(maxSize, ttl);
+        playersByUser = new BoundedCache<>(maxSize, ttl);
+    }
+
+    public Optional<User> userByEmail(String email) {
+        return Optional.ofNullable(
+                usersByEmail.get(email, key -> userRepository.findByEmail(key).orElse(null)));
+    }
+
+    /** The name shown to other players for this login email; the email itself if unknown. */
+    public String displayName(String email) {
+        return userByEmail(email).map(User::getUsername).orElse(email);
+    }
+
+    public Optional<PlayerEntity> playerOf(User user) {
+        return Optional.ofNullable(
+                playersByUser.get(
+                        user.getId(), _ -> playerRepository.findByUser(user).orElse(null)));
+    }
+
+    /** A user was just saved, with or without a new profile. */
+    public void userSaved(User user, PlayerEntity profile) {
+        usersByEmail.put(user.getEmail(), user);
+        if (profile != null) {
+            playersByUser.put(user.getId(), profile);
+        } else {
+            playersByUser.invalidate(user.getId());
+        }
+    }
+
+    /** A profile was just created for an existing user. */
+    public void playerSaved(PlayerEntity profile) {
+        playersByUser.put(profile.getUser().getId(), profile);
+    }
+
+    /** These users' profiles were rewritten in the database, e.g. by a score batch. */
+    public void playersChanged(Collection<UUID> userIds) {
+        userIds.forEach(playersByUser::invalidate);
+    }
+
+    public BoundedCache.Stats userStats() {
+        return usersByEmail.stats();
+    }
+
+    public BoundedCache.Stats playerStats() {
+        return playersByUser.stats();
+    }
+}
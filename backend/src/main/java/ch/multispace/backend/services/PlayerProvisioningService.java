@@ -5,7 +5,6 @@ import ch.multispace.backend.exceptions.UnauthorizedException;
 import ch.multispace.backend.model.PlayerEntity;
 import ch.multispace.backend.model.User;
 import ch.multispace.backend.repositories.PlayerRepository;
-import ch.multispace.backend.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,13 +12,13 @@ import org.springframework.stereotype.Service;
 /**
  * Resolves the game profile behind an authenticated principal, creating it on first use.
  * AuthService.register already creates a PlayerEntity, so the create branch only fires for accounts
- * that predate that behaviour.
+ * that predate that behaviour. Both lookups go through the {@link IdentityCache}.
  */
 @Service
 @RequiredArgsConstructor
 public class PlayerProvisioningService {
 
-    private final UserRepository userRepository;
+    private final IdentityCache identityCache;
     private final PlayerRepository playerRepository;
 
     public PlayerEntity forPrincipal(UserDetails userDetails) {
@@ -28,17 +27,19 @@ public class PlayerProvisioningService {
         }
         // UserDetails.getUsername() carries the email; see AuthService.
         User user =
-                userRepository
-                        .findByEmail(userDetails.getUsername())
+                identityCache
+                        .userByEmail(userDetails.getUsername())
                         .orElseThrow(() -> new NotFoundException("User not found"));
 
-        return playerRepository
-                .findByUser(user)
+        return identityCache
+                .playerOf(user)
                 .orElseGet(
                         () -> {
                             PlayerEntity created = new PlayerEntity();
                             created.setUser(user);
-                            return playerRepository.save(created);
+                            created = playerRepository.save(created);
+                            identityCache.playerSaved(created);
+                            return created;
                         });
     }
 }
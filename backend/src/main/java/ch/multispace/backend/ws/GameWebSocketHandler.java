@@ -1,23 +1,30 @@
 package ch.multispace.backend.ws;
 
-import ch.multispace.backend.events.RoomsEventBroadcaster;
+import ch.multispace.backend.game.ConnectionStats;
 import ch.multispace.backend.game.GameLoop;
 import ch.multispace.backend.game.GameRoomService;
 import ch.multispace.backend.game.GameSession;
-import ch.multispace.backend.model.GameRoom;
-import ch.multispace.backend.model.User;
-import ch.multispace.backend.repositories.UserRepository;
-import ch.multispace.backend.score.ScoreService;
+import ch.multispace.backend.game.GameTraffic;
+import ch.multispace.backend.game.MatchmakingService;
+import ch.multispace.backend.game.RoomCheckpointService;
+import ch.multispace.backend.game.RoomWriteBehind;
+import ch.multispace.backend.services.IdentityCache;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 @Component
@@ -25,11 +32,18 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GameWebSocketHandler.class);
 
+    // Session attribute holding the thread-safe view of a session used for every outbound message
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
+    private static final int SEND_TIME_LIMIT_MS = 2000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 512 * 1024;
+    private static final long PING_INTERVAL_MS = 2000;
+
     private final ObjectMapper mapper = new ObjectMapper();
     private final GameRoomService gameRoomService;
-    private final RoomsEventBroadcaster roomsEventBroadcaster;
-    private final ScoreService scoreService;
-    private final UserRepository userRepository;
+    private final IdentityCache identityCache;
+    private final MatchmakingService matchmakingService;
+    private final RoomCheckpointService roomCheckpointService;
+    private final RoomWriteBehind roomWriteBehind;
 
     // Maps session → userId
     private final Map<WebSocketSession, String> sessionUserMap = new ConcurrentHashMap<>();
@@ -38,13 +52,15 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     public GameWebSocketHandler(
             GameRoomService gameRoomService,
-            RoomsEventBroadcaster roomsEventBroadcaster,
-            ScoreService scoreService,
-            UserRepository userRepository) {
+            IdentityCache identityCache,
+            MatchmakingService matchmakingService,
+            RoomCheckpointService roomCheckpointService,
+            RoomWriteBehind roomWriteBehind) {
         this.gameRoomService = gameRoomService;
-        this.roomsEventBroadcaster = roomsEventBroadcaster;
-        this.scoreService = scoreService;
-        this.userRepository = userRepository;
+        this.identityCache = identityCache;
+        this.matchmakingService = matchmakingService;
+        this.roomCheckpointService = roomCheckpointService;
+        this.roomWriteBehind = roomWriteBehind;
     }
 
     @Override
@@ -58,28 +74,78 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             closeUnauthorized(session, "Missing JWT attributes");
             return;
         }
+        if (GameLoop.isDraining()) {
+            session.close(CloseStatus.SERVICE_RESTARTED.withReason("Server restarting"));
+            return;
+        }
 
-        // Join specific room if provided (unify identity with persisted room), otherwise allocate
-        // any available
-        GameSession room;
+        UUID targetId = null;
         if (roomIdAttr != null) {
             try {
-                UUID targetId = UUID.fromString(roomIdAttr);
-                room = GameLoop.getOrCreate(targetId);
+                targetId = UUID.fromString(roomIdAttr);
             } catch (IllegalArgumentException ex) {
-                // fallback if roomId invalid
-                room = GameLoop.findAvailableRoom();
+                // invalid roomId: fall back to quick play
             }
-        } else {
-            room = GameLoop.findAvailableRoom();
         }
         // Resolve the display username from the persisted User (email is used for authentication)
-        String displayUsername =
-                userRepository.findByEmail(email).map(User::getUsername).orElse(email);
+        String displayUsername = identityCache.displayName(email);
 
-        room.addPlayer(userId, displayUsername, session);
+        // The game tick, pings and pong replies all send on this session from different threads;
+        // the decorator serializes them instead of letting the container reject concurrent sends.
+        // Snapshots are thinned before they reach this buffer: SnapshotPacer holds them back from a
+        // backlogged connection, so the buffer only ever overflows if a client stopped reading
+        // altogether. Then the session is closed (TERMINATE) rather than silently losing whatever
+        // was queued, which can be pongs and join replies as well as snapshots.
+        WebSocketSession outbound =
+                new ConcurrentWebSocketSessionDecorator(
+                        session,
+                        SEND_TIME_LIMIT_MS,
+                        SEND_BUFFER_LIMIT_BYTES,
+                        ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        session.getAttributes().put(OUTBOUND_ATTRIBUTE, outbound);
+        session.getAttributes().put(ConnectionStats.ATTRIBUTE, new ConnectionStats());
 
         sessionUserMap.put(session, userId);
+
+        if (targetId == null) {
+            // back after a restart: retake the seat restored from the checkpoint
+            targetId =
+                    roomCheckpointService
+                            .resumableRoomFor(userId)
+                            .map(GameSession::getRoomId)
+                            .orElse(null);
+        }
+        if (targetId == null) {
+            // Quick play: the matcher seats the player asynchronously, see onQuickPlayMatched
+            matchmakingService
+                    .enqueue(userId, displayUsername, outbound)
+                    .whenComplete(
+                            (room, error) -> {
+                                if (error != null) {
+                                    onQuickPlayFailed(session, userId, error);
+                                } else {
+                                    onQuickPlayMatched(session, userId, room);
+                                }
+                            });
+            return;
+        }
+
+        // Join specific room (unify identity with persisted room)
+        GameSession room = GameLoop.getRoom(targetId);
+        if (room == null) {
+            int capacity =
+                    gameRoomService
+                            .getRoom(targetId)
+                            .map(GameRoomService::capacityOf)
+                            .orElse(GameSession.DEFAULT_MAX_PLAYERS);
+            room = GameLoop.getOrCreate(targetId, capacity);
+        }
+        if (!room.addPlayer(userId, displayUsername, outbound)) {
+            sessionUserMap.remove(session);
+            LOGGER.info("❌ Room {} is full, refusing userId={}", targetId, userId);
+            session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Room is full"));
+            return;
+        }
         userRoomMap.put(userId, room.getRoomId());
 
         LOGGER.info(
@@ -99,7 +165,13 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         if (!node.has("type")) return;
 
         String type = node.get("type").asText();
+        if ("ping".equals(type)) {
+            replyToClockPing(session, node.path("payload").path("t").asLong());
+            return;
+        }
+
         if ("input".equals(type)) {
+            GameTraffic.inputReceived();
             GameSession room = getUserGameRoom(userId);
             if (room == null) {
                 LOGGER.error("⚠️ Player sent input but no room found: {}", userId);
@@ -148,9 +220,14 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         if (userId == null) return;
 
         GameSession room = getUserGameRoom(userId);
+        if (room != null && GameLoop.isDraining() && room.isCheckpointed()) {
+            // shutting down: the room lives on in the checkpoint, this is not the player leaving
+            userRoomMap.remove(userId);
+            return;
+        }
         if (room != null) {
             String removedUser =
-                    room.removeSession(session); // removes player entry if session matched
+                    room.removeSession(outbound(session)); // removes player entry if matched
             LOGGER.info(
                     "Session closed. Removed userId={} from room={}",
                     removedUser,
@@ -164,10 +241,92 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         LOGGER.info("👋 Player disconnected (userId={})", userId);
     }
 
+    @Override
+    protected void handlePongMessage(@Nonnull WebSocketSession session, PongMessage message) {
+        ConnectionStats stats = ConnectionStats.of(session);
+        ByteBuffer payload = message.getPayload();
+        if (stats == null || payload.remaining() < Long.BYTES) return;
+
+        long sentAtNanos = payload.getLong(payload.position());
+        stats.recordRtt((System.nanoTime() - sentAtNanos) / 1_000_000.0);
+    }
+
+    /**
+     * Sends a protocol-level ping carrying its send time to every connected session. Browsers
+     * answer pings on their own, so RTT is measured without any client code.
+     */
+    @Scheduled(fixedRate = PING_INTERVAL_MS)
+    public void pingSessions() {
+        for (WebSocketSession session : sessionUserMap.keySet()) {
+            if (!session.isOpen()) continue;
+            ByteBuffer payload = ByteBuffer.allocate(Long.BYTES).putLong(0, System.nanoTime());
+            try {
+                outbound(session).sendMessage(new PingMessage(payload));
+            } catch (IOException | IllegalStateException | SessionLimitExceededException e) {
+                LOGGER.debug("Ping to session {} failed: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
     // ------------------
     // Helper functions
     // ------------------
 
+    /**
+     * Runs on the matcher thread once a quick-play player has been seated. If the connection closed
+     * while the player was queued, afterConnectionClosed may already have run without knowing the
+     * room, so the player is taken back out here.
+     */
+    private void onQuickPlayMatched(WebSocketSession session, String userId, GameSession room) {
+        if (room == null) return;
+        userRoomMap.put(userId, room.getRoomId());
+        if (!session.isOpen() || !sessionUserMap.containsKey(session)) {
+            userRoomMap.remove(userId, room.getRoomId());
+            String removedUser = room.removeSession(outbound(session));
+            if (removedUser != null) handlePersistenceAfterLeave(room, removedUser);
+            return;
+        }
+        LOGGER.info("✅ Player matched: userId={} in room {}", userId, room.getRoomId());
+    }
+
+    /** The matcher could not seat the player; without this the socket stays open and unseated. */
+    private void onQuickPlayFailed(WebSocketSession session, String userId, Throwable error) {
+        sessionUserMap.remove(session);
+        LOGGER.warn("❌ Matchmaking failed for userId={}: {}", userId, error.getMessage());
+        try {
+            session.close(CloseStatus.SERVER_ERROR.withReason("Matchmaking failed"));
+        } catch (Exception _) {
+            // ignore
+        }
+    }
+
+    /**
+     * Answers {"type":"ping","payload":{"t":clientMillis}} with the server time, the smoothed clock
+     * offset (add it to the client clock to get server time) and the current RTT estimate.
+     */
+    private void replyToClockPing(WebSocketSession session, long clientSentMs) throws IOException {
+        ConnectionStats stats = ConnectionStats.of(session);
+        if (stats == null) return;
+
+        long now = System.currentTimeMillis();
+        double offset = stats.recordClockSample(clientSentMs, now);
+
+        ObjectNode pong = mapper.createObjectNode();
+        pong.put("type", "pong");
+        ObjectNode payload = pong.putObject("payload");
+        payload.put("t", clientSentMs);
+        payload.put("serverTime", now);
+        payload.put("offset", offset);
+        payload.put("rtt", stats.getSmoothedRttMs());
+        payload.put("jitter", stats.getJitterMs());
+        outbound(session).sendMessage(new TextMessage(mapper.writeValueAsString(pong)));
+    }
+
+    private WebSocketSession outbound(WebSocketSession session) {
+        WebSocketSession outbound = getAttribute(session, OUTBOUND_ATTRIBUTE);
+        return outbound != null ? outbound : session;
+    }
+
     private GameSession getUserGameRoom(String userId) {
         UUID roomId = userRoomMap.get(userId);
         return roomId != null ? GameLoop.getRoom(roomId) : null;
@@ -184,61 +343,26 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         session.close(CloseStatus.NOT_ACCEPTABLE.withReason(reason));
     }
 
-    private void deletePersistedRoom(UUID roomId) {
-        try {
-            var opt = gameRoomService.getRoom(roomId);
-            if (opt.isPresent()) {
-                gameRoomService.deleteRoom(opt.get());
-                LOGGER.info(
-                        "🗑️ Deleted persisted GameRoom with id {} after it became empty", roomId);
-                roomsEventBroadcaster.broadcastRoomDeleted(roomId);
-            } else {
-                LOGGER.info(
-                        "No persisted GameRoom found for id {} to delete (already gone?)", roomId);
-            }
-        } catch (Exception e) {
-            LOGGER.warn("Failed to delete persisted GameRoom {}: {}", roomId, e.getMessage());
-        }
-    }
-
+    /**
+     * Record the leave for the write-behind and return at once; the database work and the SSE event
+     * happen on its writer thread, see RoomWriteBehind.
+     */
     private void handlePersistenceAfterLeave(GameSession room, String userIdStr) {
+        // a quick-play room that was full takes new players again
+        matchmakingService.seatFreed(room);
         UUID roomId = room.getRoomId();
-        // If the in-memory room is now empty, delete the DB room and broadcast
+        // If the in-memory room is now empty, the match is over: its results and final scores are
+        // persisted and the DB room ended
         if (room.isEmpty()) {
-            // Persist final scores once per room
-            if (!room.isScoresPersisted()) {
-                try {
-                    scoreService.persistRoomScores(room.getScoresSnapshotUuidMap());
-                } catch (Exception ignored) {
-                }
-                room.markScoresPersisted();
-            }
-            deletePersistedRoom(roomId);
+            roomWriteBehind.roomEnded(room);
             return;
         }
 
-        // Otherwise, remove the player from persisted list and broadcast an update
+        // Otherwise, remove the player from the persisted list
         try {
-            UUID playerUuid = UUID.fromString(userIdStr);
-            var opt = gameRoomService.getRoom(roomId);
-            if (opt.isPresent()) {
-                GameRoom dbRoom = opt.get();
-                dbRoom.getPlayerIds().remove(playerUuid);
-                // If players remain, ensure status reflects availability
-                Integer max = dbRoom.getMaxPlayer() != null ? dbRoom.getMaxPlayer() : 2;
-                if (dbRoom.getPlayerIds().size() < max) {
-                    dbRoom.setStatus("WAITING");
-                }
-                var saved = gameRoomService.save(dbRoom);
-                roomsEventBroadcaster.broadcastRoomUpdated(saved);
-            } else {
-                LOGGER.info("No persisted room {} found to update on leave", roomId);
-            }
+            roomWriteBehind.playerLeft(roomId, UUID.fromString(userIdStr));
         } catch (IllegalArgumentException ex) {
             LOGGER.warn("Could not parse userId as UUID for persistence update: {}", userIdStr);
-        } catch (Exception e) {
-            LOGGER.warn(
-                    "Failed to update persisted room {} after leave: {}", roomId, e.getMessage());
         }
     }
 }
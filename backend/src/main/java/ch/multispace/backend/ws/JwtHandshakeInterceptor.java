@@ -1,11 +1,16 @@
 package ch.multispace.backend.ws;
 
+import ch.multispace.backend.cluster.ClusterNode;
+import ch.multispace.backend.cluster.RoomRouter;
 import ch.multispace.backend.security.JwtService;
+import ch.multispace.backend.security.TokenRevocationService;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Map;
+import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
@@ -18,10 +23,21 @@ public class JwtHandshakeInterceptor implements HandshakeInterceptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtHandshakeInterceptor.class);
 
+    // 421 Misdirected Request: the room's game runs on another node
+    static final HttpStatusCode MISDIRECTED = HttpStatusCode.valueOf(421);
+    static final String ROOM_OWNER_HEADER = "X-Room-Owner";
+
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RoomRouter roomRouter;
 
-    public JwtHandshakeInterceptor(JwtService jwtService) {
+    public JwtHandshakeInterceptor(
+            JwtService jwtService,
+            TokenRevocationService tokenRevocationService,
+            RoomRouter roomRouter) {
         this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.roomRouter = roomRouter;
     }
 
     @Override
@@ -55,15 +71,14 @@ public class JwtHandshakeInterceptor implements HandshakeInterceptor {
         }
 
         try {
-            // Validate token
-            jwtService.validateTokenForWebSocket(token);
-
-            // Extract userId from 'sub' claim
-            String userId = jwtService.extractClaimForWebSocket(token, "userId");
-            String email = jwtService.extractUsername(token);
+            // Validate token once; userId and email both come from its claims
+            JwtService.VerifiedToken verified = jwtService.verify(token);
+            tokenRevocationService.requireNotRevoked(verified);
+            String userId = verified.userId();
+            String email = verified.subject();
 
             if (userId == null) {
-                LOGGER.info("❌ Token missing 'sub' claim for userId");
+                LOGGER.info("❌ Token missing 'userId' claim");
                 return false;
             }
 
@@ -77,7 +92,17 @@ public class JwtHandshakeInterceptor implements HandshakeInterceptor {
             if (roomIdParam != null && !roomIdParam.isBlank()) {
                 try {
                     // validate UUID format; store as string to avoid classloading issues here
-                    java.util.UUID.fromString(roomIdParam);
+                    UUID roomId = UUID.fromString(roomIdParam);
+                    if (!roomRouter.isLocal(roomId)) {
+                        // the game must run on exactly one node. The web client connects to the
+                        // room's node itself; this catches clients that did not, and the header
+                        // names the right one for those that can read it (docs/architecture.md)
+                        ClusterNode owner = roomRouter.ownerOf(roomId);
+                        LOGGER.info("Room {} is owned by node {}, refusing", roomId, owner.id());
+                        response.setStatusCode(MISDIRECTED);
+                        response.getHeaders().set(ROOM_OWNER_HEADER, owner.url());
+                        return false;
+                    }
                     attributes.put("roomId", roomIdParam);
                 } catch (IllegalArgumentException ex) {
                     LOGGER.warn("Ignoring invalid roomId in WS handshake: {}", roomIdParam);
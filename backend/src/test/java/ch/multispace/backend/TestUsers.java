@@ -0,0 +1,18 @@
+package ch.multispace.backend;
+
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.UserRepository;
+import java.util.UUID;
+
+/** Accounts for tests that need real users rows, named so tests sharing a database never clash. */
+public final class TestUsers {
+
+    private TestUsers() {}
+
+    /** Save a user named {@code prefix} plus a random suffix; the password is never checked. */
+    public static User save(UserRepository userRepository, String prefix) {
+        String name = prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(
+                User.builder().email(name + "@example.com").username(name).password("x").build());
+    }
+}
@@ -0,0 +1,103 @@
+package ch.multispace.backend.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Every node must compute the same owner for a room from the same membership, rooms must spread
+ * evenly, and a membership change may only move the rooms it has to.
+ */
+class RoomRouterTest {
+
+    private static final int ROOMS = 30_000;
+
+    private static List<ClusterNode> nodes(int count) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            nodes.add(new ClusterNode("node-" + i, "http://localhost:" + (8079 + i)));
+        }
+        return nodes;
+    }
+
+    private static RoomRouter router(String selfId, String staticNodes) {
+        RoomRouter router = new RoomRouter(null);
+        ReflectionTestUtils.setField(router, "selfId", selfId);
+        ReflectionTestUtils.setField(router, "staticNodes", staticNodes);
+        router.init();
+        return router;
+    }
+
+    @Test
+    void roomsSpreadEvenlyOverTheRing() {
+        HashRing ring = new HashRing(nodes(3));
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < ROOMS; i++) {
+            owned.merge(ring.ownerOf(UUID.randomUUID().toString()).id(), 1, Integer::sum);
+        }
+        for (int count : owned.values()) {
+            // within 20% of a perfect third
+            assertTrue(Math.abs(count - ROOMS / 3) < ROOMS / 15, "uneven spread: " + owned);
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesRoomsToThatNode() {
+        HashRing before = new HashRing(nodes(3));
+        HashRing after = new HashRing(nodes(4));
+        int moved = 0;
+        for (int i = 0; i < ROOMS; i++) {
+            String room = UUID.randomUUID().toString();
+            ClusterNode was = before.ownerOf(room);
+            ClusterNode is = after.ownerOf(room);
+            if (!was.equals(is)) {
+                moved++;
+                assertEquals("node-4", is.id(), "a room moved between two surviving nodes");
+            }
+        }
+        // about a quarter should move to the new node, never most of the rooms
+        assertTrue(moved > ROOMS / 6 && moved < ROOMS / 3, "moved " + moved + " rooms");
+    }
+
+    @Test
+    void everyNodeAgreesOnTheOwnerAndExactlyOneServesTheRoom() {
+        String spec = "node-1=http://localhost:8080, node-2=http://localhost:8081";
+        RoomRouter first = router("node-1", spec);
+        RoomRouter second = router("node-2", spec);
+        for (int i = 0; i < 1_000; i++) {
+            UUID room = UUID.randomUUID();
+            assertEquals(first.ownerOf(room), second.ownerOf(room));
+            assertTrue(first.isLocal(room) ^ second.isLocal(room));
+        }
+    }
+
+    @Test
+    void aSingleUnconfiguredNodeOwnsEveryRoom() {
+        RoomRouter router = router("local", "");
+
+        assertTrue(router.isLocal(UUID.randomUUID()));
+        assertEquals(List.of(router.self()), router.getNodes());
+    }
+
+    @Test
+    void membershipUpdatesAlwaysKeepThisNode() {
+        RoomRouter router = router("node-1", "");
+        router.updateMembers(nodes(3).subList(1, 3));
+
+        assertEquals(3, router.getNodes().size());
+        assertEquals("node-1", router.getNodes().getFirst().id());
+    }
+
+    @Test
+    void aMalformedStaticNodeListIsRejected() {
+        assertThrows(IllegalStateException.class, () -> RoomRouter.parseNodes("node-1"));
+    }
+}
@@ -0,0 +1,77 @@
+package ch.multispace.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import ch.multispace.backend.game.GameLoop;
+import ch.multispace.backend.game.GameSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.socket.WebSocketSession;
+
+/** Pins the meters served at /actuator/prometheus and what the room counter counts. */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsConfigTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void prometheusScrapesTheGameServersMeters() throws Exception {
+        String scrape =
+                mockMvc.perform(get("/actuator/prometheus"))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString();
+        for (String meter :
+                List.of(
+                        "game_tick_seconds_bucket",
+                        "game_tick_overrun_milliseconds_bucket",
+                        "game_rooms{state=\"active\"}",
+                        "game_rooms{state=\"hibernated\"}",
+                        "game_rooms_closed_total",
+                        "game_players_connected",
+                        "game_snapshots_sent_total",
+                        "game_snapshots_bytes_total",
+                        "game_send_failures_total",
+                        "game_inputs_received_total",
+                        "sse_clients{stream=\"rooms\"}",
+                        "sse_clients{stream=\"leaderboard\"}",
+                        "scores_write_seconds_bucket",
+                        "matches_results_failed_total",
+                        "rooms_writes_failed_total",
+                        "auth_password_hash_seconds_count",
+                        "auth_password_hash_queue",
+                        "auth_password_hash_active",
+                        "auth_password_hash_rejected_total",
+                        "cache_gets_total{cache=\"users\",result=\"hit\"}")) {
+            assertTrue(scrape.contains(meter), meter);
+        }
+    }
+
+    @Test
+    void aRoomClosedByItsLastPlayerLeavingIsCounted() {
+        double before = meterRegistry.get("game.rooms.closed").functionCounter().count();
+        GameSession room = GameLoop.getOrCreate(UUID.randomUUID(), 4);
+        room.addPlayer("metrics-user", "metrics-user", mock(WebSocketSession.class));
+
+        // closes the room, which leaves the registry between ticks
+        room.removePlayer("metrics-user");
+
+        assertEquals(
+                before + 1, meterRegistry.get("game.rooms.closed").functionCounter().count());
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -100,6 +101,31 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.error").value("Invalid email or password"));
     }
 
+    @Test
+    void repeatedLoginsToOneAccountAreRefusedWith429() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(
+                            post("/api/auth/login")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(
+                                            """
+                            {"email":"Stuffed@example.com","password":"guess%d"}
+                            """
+                                                    .formatted(i)))
+                    .andExpect(status().isUnauthorized());
+        }
+        // the limit is per account, whatever the case of the address
+        mockMvc.perform(
+                        post("/api/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(
+                                        """
+                        {"email":"stuffed@example.com","password":"guess"}
+                        """))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
     @Test
     void meRequiresAuthentication() throws Exception {
         mockMvc.perform(get("/api/auth/me")).andExpect(status().is4xxClientError());
@@ -130,4 +156,16 @@ class AuthControllerTest {
                 !result.getResponse().getContentAsString().contains("$2a$"),
                 "the response must not contain a BCrypt hash");
     }
+
+    @Test
+    void aLoggedOutTokenIsRejectedEverywhere() throws Exception {
+        String token = registerAndGetToken();
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/rooms/stream").param("token", token))
+                .andExpect(status().isUnauthorized());
+    }
 }
@@ -1,14 +1,22 @@
 package ch.multispace.backend.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import ch.multispace.backend.events.RoomsEventBroadcaster;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -23,6 +31,7 @@ class GameRoomControllerTest {
 
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper objectMapper;
+    @Autowired private RoomsEventBroadcaster roomsEventBroadcaster;
 
     private static int counter = 0;
 
@@ -84,6 +93,21 @@ class GameRoomControllerTest {
                 .andExpect(jsonPath("$.status").exists());
     }
 
+    @Test
+    void aRoomCanBeCreatedWithItsOwnCapacity() throws Exception {
+        String token = registerAndGetToken();
+        mockMvc.perform(
+                        post("/api/rooms")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(
+                                        """
+                                {"name":"Large","maxPlayers":32}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxPlayer").value(32));
+    }
+
     @Test
     void aCreatedRoomAppearsInTheOpenRoomList() throws Exception {
         String token = registerAndGetToken();
@@ -129,6 +153,73 @@ class GameRoomControllerTest {
                 .andExpect(jsonPath("$.roomId").value(roomId));
     }
 
+    @Test
+    void joiningAFullRoomIsAConflict() throws Exception {
+        String hostToken = registerAndGetToken();
+        String roomId = createRoom(hostToken, "Echo");
+
+        // the default cap is two players
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(
+                            post("/api/rooms/" + roomId + "/join")
+                                    .header("Authorization", "Bearer " + registerAndGetToken()))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(
+                        post("/api/rooms/" + roomId + "/join")
+                                .header("Authorization", "Bearer " + registerAndGetToken()))
+                .andExpect(status().isConflict());
+    }
+
+    private MvcResult stream(String token, String lastEventId) throws Exception {
+        var request = get("/api/rooms/stream").param("token", token);
+        if (lastEventId != null) request.header("Last-Event-ID", lastEventId);
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    // frames are written by the fan-out threads, shortly after the stream is opened
+    private String awaitContent(MvcResult stream, String... expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            String content = stream.getResponse().getContentAsString();
+            if (Arrays.stream(expected).allMatch(content::contains)
+                    || System.currentTimeMillis() > deadline) {
+                return content;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void aResumedStreamIsSentOnlyWhatItMissed() throws Exception {
+        String token = registerAndGetToken();
+        MvcResult live = stream(token, null);
+        // enough open rooms that replaying two events beats a snapshot
+        for (int i = 0; i < 3; i++) createRoom(token, "Foxtrot" + i);
+
+        Matcher ids =
+                Pattern.compile("id:(\\S+)").matcher(awaitContent(live, "event:hello", "Foxtrot2"));
+        String lastSeen = null;
+        while (ids.find()) lastSeen = ids.group(1);
+        assertNotNull(lastSeen);
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        roomsEventBroadcaster.broadcastRoomDeleted(first);
+        roomsEventBroadcaster.broadcastRoomDeleted(second);
+
+        String resumed = awaitContent(stream(token, lastSeen), first.toString(), second.toString());
+        assertTrue(resumed.contains(first.toString()));
+        assertTrue(resumed.contains(second.toString()));
+        assertFalse(resumed.contains("hello"));
+        assertFalse(resumed.contains("snapshot"));
+
+        // an id this process never issued cannot be replayed from
+        assertTrue(
+                awaitContent(stream(token, "elsewhere-1"), "event:snapshot")
+                        .contains("event:snapshot"));
+    }
+
     @Test
     void theHostCanDeleteItsOwnRoom() throws Exception {
         String token = registerAndGetToken();
@@ -0,0 +1,174 @@
+package ch.multispace.backend.controllers;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ScoreControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private static int counter = 0;
+
+    private String registerAndGetToken() throws Exception {
+        String unique = "score" + (++counter);
+        MvcResult result =
+                mockMvc.perform(
+                                post("/api/auth/register")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(
+                                                """
+                                {"email":"%s@example.com","username":"%s","password":"Passw0rd!"}
+                                """
+                                                        .formatted(unique, unique)))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        return objectMapper
+                .readTree(result.getResponse().getContentAsString())
+                .get("token")
+                .asText();
+    }
+
+    private JsonNode page(String token, String after, int size) throws Exception {
+        var request =
+                get("/api/leaderboard/page")
+                        .header("Authorization", "Bearer " + token)
+                        .param("size", String.valueOf(size));
+        if (after != null) request.param("after", after);
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void walkingEveryPageVisitsEveryPlayerOnceInScoreOrder() throws Exception {
+        String token = registerAndGetToken();
+        for (int i = 0; i < 4; i++) registerAndGetToken();
+
+        List<String> players = new ArrayList<>();
+        List<Integer> scores = new ArrayList<>();
+        String after = null;
+        do {
+            JsonNode page = page(token, after, 2);
+            for (JsonNode row : page.get("rows")) {
+                players.add(row.get("player").asText());
+                scores.add(row.get("score").asInt());
+            }
+            after = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (after != null);
+
+        List<Integer> table =
+                jdbcTemplate.queryForList(
+                        "SELECT COALESCE(high_score, 0) FROM players ORDER BY 1 DESC",
+                        Integer.class);
+        assertEquals(table, scores);
+        assertEquals(players.size(), new HashSet<>(players).size());
+    }
+
+    @Test
+    void topOfTheBoardIsCappedAtTheMaximumPageSize() throws Exception {
+        String token = registerAndGetToken();
+        mockMvc.perform(
+                        get("/api/leaderboard")
+                                .header("Authorization", "Bearer " + token)
+                                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        MvcResult all =
+                mockMvc.perform(
+                                get("/api/leaderboard")
+                                        .header("Authorization", "Bearer " + token)
+                                        .param("limit", "100000"))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        int rows = objectMapper.readTree(all.getResponse().getContentAsString()).size();
+        assertTrue(rows <= 100);
+    }
+
+    @Test
+    void aTamperedCursorIsRejected() throws Exception {
+        String token = registerAndGetToken();
+        mockMvc.perform(
+                        get("/api/leaderboard/page")
+                                .header("Authorization", "Bearer " + token)
+                                .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void windowedBoardsTakeAnIsoDate() throws Exception {
+        String token = registerAndGetToken();
+        mockMvc.perform(
+                        get("/api/leaderboard/weekly")
+                                .header("Authorization", "Bearer " + token)
+                                .param("date", "2019-01-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/leaderboard/daily").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(
+                        get("/api/leaderboard/daily")
+                                .header("Authorization", "Bearer " + token)
+                                .param("date", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void myRankIsTheCallersPlaceOnTheBoard() throws Exception {
+        String token = registerAndGetToken();
+        String me = "score" + counter;
+        int higher =
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM players WHERE high_score > 0", Integer.class);
+        mockMvc.perform(
+                        get("/api/leaderboard/me")
+                                .header("Authorization", "Bearer " + token)
+                                .param("neighbours", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.me.player").value(me))
+                .andExpect(jsonPath("$.me.score").value(0))
+                .andExpect(jsonPath("$.me.rank").value(higher + 1))
+                .andExpect(jsonPath("$.below.length()").value(lessThanOrEqualTo(1)));
+    }
+
+    @Test
+    void theStreamOpensWithASnapshotAndFollowsTheBoard() throws Exception {
+        String token = registerAndGetToken();
+        MvcResult stream =
+                mockMvc.perform(get("/api/leaderboard/stream").param("token", token))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+        // the new player is on the board either in the snapshot or in the next interval's delta
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = stream.getResponse().getContentAsString();
+        while (!(content.contains("event:snapshot") && content.contains("\"rank\":1"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.startsWith("event:snapshot"), content);
+        assertTrue(content.contains("\"rank\":1"), content);
+    }
+}
@@ -0,0 +1,86 @@
+package ch.multispace.backend.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.events.PostgresRoomEventBus.Envelope;
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The batching half of the Postgres bus, without a database: what a burst coalesces to, that it
+ * fits NOTIFY's payload limit, and that only other nodes' events are republished.
+ */
+class PostgresRoomEventBusTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    private static Envelope event(String origin, String type, String room, String version) {
+        return new Envelope(origin, type, room, TextNode.valueOf(version));
+    }
+
+    @Test
+    void aBurstKeepsOnlyTheLatestEventPerRoomInOrder() {
+        List<Envelope> burst =
+                List.of(
+                        event("a", "room.updated", "r1", "v1"),
+                        event("a", "room.created", "r2", "v1"),
+                        event("a", "room.updated", "r1", "v2"),
+                        event("a", "hello", null, "x"),
+                        event("a", "hello", null, "y"),
+                        event("a", "room.deleted", "r2", "v2"));
+
+        List<Envelope> kept = PostgresRoomEventBus.coalesce(burst);
+
+        assertEquals(
+                List.of("room.created", "room.updated", "hello", "hello", "room.deleted"),
+                kept.stream().map(Envelope::type).toList());
+        assertEquals("v2", kept.get(1).payload().asText());
+    }
+
+    @Test
+    void batchesAreSplitUnderThePayloadLimit() throws Exception {
+        PostgresRoomEventBus bus = new PostgresRoomEventBus(null, null, mapper);
+        List<Envelope> many = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            many.add(event("a", "room.updated", UUID.randomUUID().toString(), "état " + i));
+        }
+
+        List<String> payloads = bus.encode(many);
+
+        assertTrue(payloads.size() > 1);
+        int decoded = 0;
+        for (String payload : payloads) {
+            assertTrue(
+                    payload.getBytes(StandardCharsets.UTF_8).length
+                            <= PostgresRoomEventBus.MAX_PAYLOAD_BYTES);
+            decoded += mapper.readValue(payload, Envelope[].class).length;
+        }
+        assertEquals(many.size(), decoded);
+    }
+
+    @Test
+    void onlyOtherNodesEventsAreRepublished() throws Exception {
+        PostgresRoomEventBus bus = new PostgresRoomEventBus(null, null, mapper);
+        List<RoomsEvent> received = new ArrayList<>();
+        bus.subscribe(received::add);
+        String own = (String) ReflectionTestUtils.getField(bus, "origin");
+
+        bus.receive(
+                bus.encode(
+                                List.of(
+                                        event(own, "room.updated", "r1", "mine"),
+                                        event("other", "room.updated", "r1", "theirs")))
+                        .getFirst());
+
+        assertEquals(1, received.size());
+        assertEquals("theirs", ((TextNode) received.getFirst().payload()).asText());
+    }
+}
@@ -0,0 +1,52 @@
+package ch.multispace.backend.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import ch.multispace.backend.dtos.GameRoomDto;
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/** The coalescing half of the SSE fan-out: what a burst of room events is cut down to. */
+class RoomsEventBroadcasterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    private static GameRoomDto room(UUID id, String status) {
+        return new GameRoomDto(id, "r", status, 2, 0, List.of(), null, null, null, null, null);
+    }
+
+    @Test
+    void aBurstKeepsOnlyTheLatestUpdatePerRoomInOrder() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        RoomsEvent latest = new RoomsEvent("room.updated", room(a, "STARTED"));
+        List<RoomsEvent> burst =
+                List.of(
+                        new RoomsEvent("room.updated", room(a, "WAITING")),
+                        new RoomsEvent("room.created", room(b, "WAITING")),
+                        new RoomsEvent("room.started", room(a, "STARTED")),
+                        // relayed from another node
+                        new RoomsEvent("room.updated", mapper.valueToTree(room(b, "WAITING"))),
+                        latest,
+                        new RoomsEvent("room.updated", mapper.valueToTree(room(b, "STARTED"))),
+                        new RoomsEvent("room.deleted", b));
+
+        List<RoomsEvent> kept = RoomsEventBroadcaster.coalesce(burst);
+
+        assertEquals(
+                List.of(
+                        "room.created",
+                        "room.started",
+                        "room.updated",
+                        "room.updated",
+                        "room.deleted"),
+                kept.stream().map(RoomsEvent::type).toList());
+        assertSame(latest, kept.get(2));
+        assertEquals("STARTED", ((JsonNode) kept.get(3).payload()).path("status").asText());
+    }
+}
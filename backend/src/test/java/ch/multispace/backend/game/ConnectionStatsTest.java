@@ -0,0 +1,101 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+/** Snapshot pacing and the latency endpoint read these estimates; pin the RFC 6298 arithmetic. */
+class ConnectionStatsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void theFirstSampleSeedsRttAndJitter() {
+        ConnectionStats stats = new ConnectionStats();
+        assertFalse(stats.hasRtt());
+        assertEquals(-1, stats.getSmoothedRttMs(), EPSILON);
+
+        stats.recordRtt(100);
+        assertTrue(stats.hasRtt());
+        assertEquals(100, stats.getSmoothedRttMs(), EPSILON);
+        assertEquals(50, stats.getJitterMs(), EPSILON);
+        assertEquals(1, stats.getSamples());
+    }
+
+    @Test
+    void laterSamplesAreSmoothed() {
+        ConnectionStats stats = new ConnectionStats();
+        stats.recordRtt(100);
+        stats.recordRtt(180);
+        // jitter moves a quarter of the way to |100 - 180|, srtt an eighth of the way to 180
+        assertEquals(50 + (80 - 50) / 4.0, stats.getJitterMs(), EPSILON);
+        assertEquals(100 + 80 / 8.0, stats.getSmoothedRttMs(), EPSILON);
+        assertEquals(2, stats.getSamples());
+    }
+
+    @Test
+    void aSingleLatePongBarelyMovesTheEstimate() {
+        ConnectionStats stats = new ConnectionStats();
+        for (int i = 0; i < 50; i++) stats.recordRtt(40);
+        stats.recordRtt(1_000);
+        assertTrue(stats.getSmoothedRttMs() < 200, "srtt " + stats.getSmoothedRttMs());
+        for (int i = 0; i < 50; i++) stats.recordRtt(40);
+        assertEquals(40, stats.getSmoothedRttMs(), 1);
+    }
+
+    @Test
+    void negativeSamplesAreIgnored() {
+        ConnectionStats stats = new ConnectionStats();
+        stats.recordRtt(-5);
+        assertFalse(stats.hasRtt());
+        assertEquals(0, stats.getSamples());
+    }
+
+    @Test
+    void theClockOffsetAllowsForHalfTheRoundTrip() {
+        ConnectionStats stats = new ConnectionStats();
+        stats.recordRtt(100);
+        // sent at 1000 on the client, received at 1550 here: 50 ms in flight, so 500 ms behind
+        assertEquals(500, stats.recordClockSample(1_000, 1_550), EPSILON);
+        // then smoothed by 1/8 towards later samples
+        assertEquals(500 + (580 - 500) / 8.0, stats.recordClockSample(2_000, 2_630), EPSILON);
+        assertEquals(510, stats.getClockOffsetMs(), EPSILON);
+    }
+
+    @Test
+    void percentilesAreNearestRank() {
+        double[] sorted = {10, 20, 30, 40};
+        assertEquals(20, ConnectionStats.percentile(sorted, 50), EPSILON);
+        assertEquals(40, ConnectionStats.percentile(sorted, 99), EPSILON);
+        assertEquals(10, ConnectionStats.percentile(sorted, 0), EPSILON);
+        assertEquals(0, ConnectionStats.percentile(new double[0], 50), EPSILON);
+
+        ConnectionStats.Summary summary =
+                ConnectionStats.Summary.of(new double[] {30, 10, 20}, new double[] {3, 1, 2});
+        assertEquals(3, summary.connections());
+        assertEquals(20, summary.rttP50Ms(), EPSILON);
+        assertEquals(30, summary.rttMaxMs(), EPSILON);
+        assertEquals(2, summary.jitterP50Ms(), EPSILON);
+    }
+
+    @Test
+    void statsAreFoundThroughTheSessionAttribute() {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        when(session.getAttributes()).thenReturn(attributes);
+        assertNull(ConnectionStats.of(session));
+
+        ConnectionStats stats = new ConnectionStats();
+        attributes.put(ConnectionStats.ATTRIBUTE, stats);
+        assertSame(stats, ConnectionStats.of(session));
+    }
+}
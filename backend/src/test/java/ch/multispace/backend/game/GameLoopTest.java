@@ -0,0 +1,55 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Pins that the game tick does not share the {@code @Scheduled} pool: with every scheduler thread
+ * stuck, as behind a slow database refresh or the cluster heartbeat, rooms keep ticking.
+ */
+@SpringBootTest
+class GameLoopTest {
+
+    @Autowired private ThreadPoolTaskScheduler taskScheduler;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void theTickKeepsRunningWhileEverySchedulerThreadIsBusy() throws Exception {
+        int threads = taskScheduler.getPoolSize();
+        CountDownLatch busy = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            taskScheduler.execute(
+                    () -> {
+                        busy.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+        }
+        try {
+            assertTrue(busy.await(5, TimeUnit.SECONDS), "the scheduler pool never filled up");
+            long before = ticks();
+            Thread.sleep(500);
+            long ticked = ticks() - before;
+
+            // about 30 at 16 ms; a tick on the scheduler pool would get none
+            assertTrue(ticked >= 10, "only " + ticked + " ticks in 500 ms");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private long ticks() {
+        return meterRegistry.get("game.tick").timer().count();
+    }
+}
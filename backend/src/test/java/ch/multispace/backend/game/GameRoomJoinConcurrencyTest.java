@@ -0,0 +1,102 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.multispace.backend.game.GameRoomService.JoinOutcome;
+import ch.multispace.backend.game.GameRoomService.JoinResult;
+import ch.multispace.backend.model.GameRoom;
+import ch.multispace.backend.model.PlayerEntity;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.GameRoomRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Pins that simultaneous joins fill a room exactly to capacity, and that a repeat join keeps one
+ * seat.
+ */
+@SpringBootTest
+class GameRoomJoinConcurrencyTest {
+
+    private static final int JOINERS = 300;
+
+    @Autowired private GameRoomService gameRoomService;
+    @Autowired private GameRoomRepository gameRoomRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private static PlayerEntity player(UUID userId) {
+        return PlayerEntity.builder().user(User.builder().id(userId).build()).build();
+    }
+
+    private GameRoom room(int capacity) {
+        GameRoom room = new GameRoom();
+        room.setRoomName("join-race");
+        room.setStatus("WAITING");
+        room.setMaxPlayer(capacity);
+        return gameRoomRepository.save(room);
+    }
+
+    @Test
+    void simultaneousJoinsNeverOverfillARoom() throws Exception {
+        int capacity = GameSession.MAX_PLAYERS_LIMIT;
+        UUID roomId = room(capacity).getRoomId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<JoinResult>> joins = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(JOINERS)) {
+            for (int i = 0; i < JOINERS; i++) {
+                PlayerEntity joiner = player(UUID.randomUUID());
+                joins.add(
+                        pool.submit(
+                                () -> {
+                                    start.await();
+                                    return gameRoomService.joinRoom(roomId, joiner);
+                                }));
+            }
+            start.countDown();
+        }
+
+        List<JoinOutcome> outcomes = new ArrayList<>();
+        for (Future<JoinResult> join : joins) outcomes.add(join.get().outcome());
+        Map<JoinOutcome, Long> counts =
+                outcomes.stream()
+                        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        assertEquals(capacity, counts.get(JoinOutcome.JOINED));
+        assertEquals(JOINERS - capacity, counts.get(JoinOutcome.FULL));
+
+        Integer rows =
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM game_room_players WHERE game_room_id = ?",
+                        Integer.class,
+                        roomId);
+        assertEquals(capacity, rows);
+        assertEquals("STARTED", gameRoomRepository.findById(roomId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void joiningTwiceKeepsOneSeat() {
+        UUID roomId = room(3).getRoomId();
+        PlayerEntity joiner = player(UUID.randomUUID());
+
+        assertEquals(JoinOutcome.JOINED, gameRoomService.joinRoom(roomId, joiner).outcome());
+        JoinResult again = gameRoomService.joinRoom(roomId, joiner);
+        assertEquals(JoinOutcome.ALREADY_JOINED, again.outcome());
+        assertEquals(List.of(joiner.getUser().getId()), again.room().getPlayerIds());
+        assertEquals(
+                JoinOutcome.NOT_FOUND,
+                gameRoomService.joinRoom(UUID.randomUUID(), joiner).outcome());
+        assertEquals("WAITING", gameRoomRepository.findById(roomId).orElseThrow().getStatus());
+    }
+}
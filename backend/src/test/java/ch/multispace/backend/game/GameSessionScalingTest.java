@@ -0,0 +1,121 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * How one room scales with its player count. The two tick-cost checks hold a room to a fraction of
+ * the 16 ms tick budget, and tick cost to about linear growth from 2 to 32 players; they measure
+ * wall time, so they only run when asked for with {@code -Dbenchmarks=true}, on a quiet machine,
+ * and stay out of the default build.
+ */
+class GameSessionScalingTest {
+
+    private static final int WARMUP_TICKS = 300;
+    private static final int MEASURED_TICKS = 1_000;
+    // slack over linear growth when the player count grows, for noise and cache effects
+    private static final double MAX_GROWTH_PER_PLAYER_GROWTH = 1.5;
+
+    private static GameSession roomWith(int players) {
+        GameSession room = new GameSession(UUID.randomUUID(), players);
+        for (int i = 0; i < players; i++) {
+            // stubOnly: a recording mock would dominate the measurement
+            WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+            when(session.isOpen()).thenReturn(true);
+            room.addPlayer("user-" + i, "user-" + i, session);
+        }
+        return room;
+    }
+
+    /** Mean wall time of one update, in microseconds, with every player moving and firing. */
+    private static double meanTickMicros(int players) {
+        return meanTickMicros(players, null);
+    }
+
+    private static double meanTickMicros(int players, ParallelPhases phases) {
+        GameSession room = roomWith(players);
+        double dt = GameLoop.TICK_MILLIS / 1000.0;
+        long start = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + MEASURED_TICKS; tick++) {
+            if (tick == WARMUP_TICKS) start = System.nanoTime();
+            for (int i = 0; i < players; i++) {
+                boolean left = (tick / 30 + i) % 2 == 0;
+                room.handleInput("user-" + i, left, !left, true);
+            }
+            room.update(dt, phases);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_TICKS;
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void tickCostStaysWithinBudgetUpTo32Players() {
+        int[] sizes = {2, 8, 16, 32};
+        double budgetMicros = GameLoop.TICK_MILLIS * 1_000.0;
+        // one untimed pass warms the JIT up for every size, so the small rooms measure as fairly
+        // as the large one
+        for (int players : sizes) meanTickMicros(players);
+        Map<Integer, Double> micros = new LinkedHashMap<>();
+        for (int players : sizes) micros.put(players, meanTickMicros(players));
+        String figures = "mean tick by player count, µs: " + micros;
+        System.out.println(figures);
+
+        for (int i = 1; i < sizes.length; i++) {
+            double growth = micros.get(sizes[i]) / micros.get(sizes[i - 1]);
+            double playersGrowth = (double) sizes[i] / sizes[i - 1];
+            // about linear in the players; a pairwise pass would come out near the square
+            assertTrue(
+                    growth <= MAX_GROWTH_PER_PLAYER_GROWTH * playersGrowth,
+                    sizes[i] + " players cost " + growth + "x " + sizes[i - 1] + "; " + figures);
+        }
+        assertTrue(
+                micros.get(32) < budgetMicros / 4,
+                "a 32-player tick must use well under the tick budget; " + figures);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void parallelPhasesTickALargeRoomWithinBudget() {
+        ParallelPhases phases = new ParallelPhases(new ForkJoinPool(4), 1, 1);
+        try {
+            double micros = meanTickMicros(64, phases);
+            // only a ceiling: on a single-core runner the pool adds hand-off cost and no speed-up
+            assertTrue(
+                    micros < GameLoop.TICK_MILLIS * 1_000.0,
+                    "a parallel 64-player tick must fit the tick budget, took " + micros + " µs");
+        } finally {
+            phases.shutdown();
+        }
+    }
+
+    @Test
+    void roomCapacityIsTakenFromTheRequestAndClamped() {
+        assertEquals(32, new GameSession(UUID.randomUUID(), 32).getMaxPlayers());
+        assertEquals(
+                GameSession.MAX_PLAYERS_LIMIT,
+                new GameSession(UUID.randomUUID(), 10_000).getMaxPlayers());
+        assertEquals(GameSession.DEFAULT_MAX_PLAYERS, GameSession.clampMaxPlayers(null));
+    }
+
+    @Test
+    void aLargeRoomRefusesThePlayerPastItsCapacity() {
+        GameSession room = roomWith(32);
+        WebSocketSession late = mock(WebSocketSession.class);
+
+        assertTrue(room.isFull());
+        assertFalse(room.addPlayer("late", "late", late));
+        assertEquals(32, room.getPlayerCount());
+    }
+}
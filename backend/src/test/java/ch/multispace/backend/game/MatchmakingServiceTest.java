@@ -0,0 +1,143 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.multispace.backend.cluster.RoomRouter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Pins that quick play seats every player once, never overfills a room, refills one, and only opens
+ * rooms this node owns.
+ */
+class MatchmakingServiceTest {
+
+    private MatchmakingService matchmaking;
+    private final Set<GameSession> seen = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        // this node owns about half of all rooms, as one of two
+        RoomRouter roomRouter = mock(RoomRouter.class);
+        when(roomRouter.isLocal(any()))
+                .thenAnswer(call -> ownedHere(call.getArgument(0, UUID.class)));
+        matchmaking = new MatchmakingService(roomRouter);
+        matchmaking.start();
+    }
+
+    private static boolean ownedHere(UUID roomId) {
+        return (roomId.getLeastSignificantBits() & 1) == 0;
+    }
+
+    @AfterEach
+    void tearDown() {
+        matchmaking.stop();
+        seen.forEach(GameLoop::unregisterRoom);
+    }
+
+    @Test
+    void aConnectionStormSeatsEveryPlayerOnceWithoutOverfillingARoom() throws Exception {
+        int players = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<CompletableFuture<GameSession>>> enqueued = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            String userId = "user-" + i;
+            enqueued.add(
+                    CompletableFuture.supplyAsync(
+                            () -> {
+                                try {
+                                    start.await();
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                return matchmaking.enqueue(userId, userId, TestSessions.open());
+                            },
+                            pool));
+        }
+        start.countDown();
+
+        for (CompletableFuture<CompletableFuture<GameSession>> ticket : enqueued) {
+            GameSession room = ticket.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+            assertNotNull(room, "every open connection must be seated");
+            seen.add(room);
+        }
+        pool.shutdown();
+
+        int seated = 0;
+        for (GameSession room : seen) {
+            assertTrue(
+                    room.getPlayerCount() <= GameSession.DEFAULT_MAX_PLAYERS,
+                    "no room may hold more than its capacity");
+            seated += room.getPlayerCount();
+        }
+        assertEquals(players, seated, "every player must be in exactly one room");
+        assertEquals(players, matchmaking.getWaitTimes().count());
+    }
+
+    @Test
+    void aConnectionThatClosedWhileQueuedIsNotSeated() throws Exception {
+        WebSocketSession closed = mock(WebSocketSession.class);
+        when(closed.isOpen()).thenReturn(false);
+
+        GameSession room = matchmaking.enqueue("gone", "gone", closed).get(5, TimeUnit.SECONDS);
+
+        assertNull(room);
+    }
+
+    @Test
+    void aFullRoomIsRefilledOnceAPlayerLeaves() throws Exception {
+        GameSession room = null;
+        for (int i = 0; i < GameSession.DEFAULT_MAX_PLAYERS; i++) {
+            String userId = "full-" + i;
+            room =
+                    matchmaking
+                            .enqueue(userId, userId, TestSessions.open())
+                            .get(5, TimeUnit.SECONDS);
+        }
+        seen.add(room);
+        assertTrue(room.isFull());
+
+        room.removePlayer("full-0");
+        matchmaking.seatFreed(room);
+
+        GameSession late =
+                matchmaking.enqueue("late", "late", TestSessions.open()).get(5, TimeUnit.SECONDS);
+        assertSame(room, late);
+    }
+
+    @Test
+    void quickPlayOnlyOpensRoomsThisNodeOwns() throws Exception {
+        for (int i = 0; i < 4 * GameSession.DEFAULT_MAX_PLAYERS; i++) {
+            String userId = "local-" + i;
+            seen.add(
+                    matchmaking
+                            .enqueue(userId, userId, TestSessions.open())
+                            .get(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(seen.size() >= 4);
+        for (GameSession room : seen) {
+            assertTrue(ownedHere(room.getRoomId()), "room " + room.getRoomId() + " is not ours");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * The parallel phases must change how a tick is computed, never what it computes: the same seeded
+ * match played once on the tick thread and once split across a pool ends with the same scores,
+ * kills and surviving invaders, bullets and shield cells.
+ */
+class ParallelPhasesTest {
+
+    private static final UUID ROOM_ID = UUID.fromString("00000000-0000-0000-0000-00000000ab1e");
+    private static final int PLAYERS = 16;
+    private static final int TICKS = 3_000;
+
+    // scores are snapshotted by user UUID
+    private static String userId(int i) {
+        return new UUID(0, i + 1).toString();
+    }
+
+    /** Play a scripted match: half the players hold still under the same column, the rest sweep. */
+    private static GameSession play(ParallelPhases phases) {
+        GameSession room = new GameSession(ROOM_ID, PLAYERS);
+        room.seed(42);
+        for (int i = 0; i < PLAYERS; i++) {
+            WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+            when(session.isOpen()).thenReturn(true);
+            room.addPlayer(userId(i), "user-" + i, session);
+        }
+        double dt = GameLoop.TICK_MILLIS / 1000.0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 0; i < PLAYERS; i++) {
+                boolean sweeping = i % 2 == 1;
+                boolean left = sweeping && (tick / 45 + i) % 2 == 0;
+                boolean right = sweeping && !left;
+                room.handleInput(userId(i), left, right, true);
+            }
+            room.update(dt, phases);
+        }
+        room.snapshotScores();
+        return room;
+    }
+
+    private static byte[] state(GameSession room) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        room.writeCheckpoint(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void aSeededMatchEndsTheSameOnBothPaths() throws Exception {
+        GameSession serial = play(null);
+        // thresholds of 1 put every tick of this room through the pool
+        ParallelPhases phases = new ParallelPhases(new ForkJoinPool(4), 1, 1);
+        GameSession parallel;
+        try {
+            parallel = play(phases);
+        } finally {
+            phases.shutdown();
+        }
+
+        assertTrue(
+                serial.getKillsSnapshotUuidMap().values().stream().mapToInt(Integer::intValue).sum()
+                        > 0,
+                "the script must shoot something down to compare");
+        assertEquals(serial.getScoresSnapshotUuidMap(), parallel.getScoresSnapshotUuidMap());
+        assertEquals(serial.getKillsSnapshotUuidMap(), parallel.getKillsSnapshotUuidMap());
+        assertEquals(serial.getLevel(), parallel.getLevel());
+        // positions, lives, live invaders, bullets in flight and shield hit points
+        assertArrayEquals(state(serial), state(parallel));
+    }
+}
@@ -0,0 +1,167 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ch.multispace.backend.cluster.RoomRouter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * A restart must hand every running match to the next process: what the checkpoint keeps, that a
+ * returning player gets their seat back even in a full room, that only rooms this node owns come
+ * back, and that restoring thousands of rooms stays well inside a second.
+ */
+class RoomCheckpointTest {
+
+    /** A full two-player room that has been played for a few seconds. */
+    private static GameSession playedRoom(String first, String second) {
+        GameSession room = new GameSession(UUID.randomUUID(), 2);
+        room.addPlayer(first, "first", TestSessions.open());
+        room.addPlayer(second, "second", TestSessions.open());
+        double dt = GameLoop.TICK_MILLIS / 1000.0;
+        for (int tick = 0; tick < 300; tick++) {
+            room.handleInput(first, tick % 60 < 30, tick % 60 >= 30, true);
+            room.handleInput(second, false, true, true);
+            room.update(dt);
+        }
+        room.snapshotScores();
+        return room;
+    }
+
+    private static List<GameSession> roundTrip(List<GameSession> rooms) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RoomCheckpointService.write(bytes, rooms, System.currentTimeMillis());
+        return RoomCheckpointService.read(new ByteArrayInputStream(bytes.toByteArray())).rooms();
+    }
+
+    @Test
+    void aRestoredRoomKeepsItsPlayersAndScores() throws Exception {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        GameSession room = playedRoom(first, second);
+
+        GameSession restored = roundTrip(List.of(room)).getFirst();
+
+        assertEquals(room.getRoomId(), restored.getRoomId());
+        assertEquals(room.getMaxPlayers(), restored.getMaxPlayers());
+        assertEquals(2, restored.getPlayerCount());
+        assertEquals(room.getScoresSnapshotUuidMap(), restored.getScoresSnapshotUuidMap());
+        assertEquals(room.getKillsSnapshotUuidMap(), restored.getKillsSnapshotUuidMap());
+        assertTrue(restored.hasDetachedSeat(first));
+        assertTrue(restored.hasDetachedSeat(second));
+    }
+
+    @Test
+    void aReturningPlayerRetakesTheirSeatInAFullRoom() throws Exception {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        GameSession restored = roundTrip(List.of(playedRoom(first, second))).getFirst();
+
+        assertTrue(restored.isFull());
+        assertFalse(restored.addPlayer("stranger", "stranger", TestSessions.open()));
+        assertTrue(restored.addPlayer(first, "first", TestSessions.open()));
+        assertFalse(restored.hasDetachedSeat(first));
+        assertEquals(2, restored.getPlayerCount());
+    }
+
+    @Test
+    void seatsNobodyRetookAreDroppedAndAnAbandonedRoomCloses() throws Exception {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        List<GameSession> restored =
+                roundTrip(List.of(playedRoom(first, second), playedRoom(first, second)));
+        GameSession resumed = restored.get(0);
+        GameSession abandoned = restored.get(1);
+        resumed.addPlayer(first, "first", TestSessions.open());
+
+        assertEquals(1, resumed.dropDetachedSeats());
+        assertEquals(2, abandoned.dropDetachedSeats());
+
+        assertFalse(resumed.isClosed());
+        assertTrue(abandoned.isClosed());
+        // the dropped players' scores are still there to persist
+        assertEquals(2, abandoned.getScoresSnapshotUuidMap().size());
+    }
+
+    @Test
+    void aRoomOwnedByAnotherNodeIsEndedInsteadOfRestored(@TempDir Path dir) throws Exception {
+        String ourPlayer = UUID.randomUUID().toString();
+        GameSession ours = playedRoom(ourPlayer, UUID.randomUUID().toString());
+        GameSession theirs =
+                playedRoom(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        Path file = dir.resolve("rooms.checkpoint");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            RoomCheckpointService.write(out, List.of(ours, theirs), System.currentTimeMillis());
+        }
+        RoomWriteBehind roomWriteBehind = mock(RoomWriteBehind.class);
+        RoomRouter roomRouter = mock(RoomRouter.class);
+        when(roomRouter.isLocal(ours.getRoomId())).thenReturn(true);
+        when(roomRouter.isLocal(theirs.getRoomId())).thenReturn(false);
+        RoomCheckpointService service =
+                new RoomCheckpointService(mock(GameLoop.class), roomWriteBehind, roomRouter);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "file", file.toString());
+
+        service.restore();
+        GameSession restored = GameLoop.getRoom(ours.getRoomId());
+        try {
+            assertNotNull(restored);
+            assertSame(restored, service.resumableRoomFor(ourPlayer).orElseThrow());
+            assertNull(GameLoop.getRoom(theirs.getRoomId()));
+            verify(roomWriteBehind)
+                    .roomEnded(argThat(r -> r.getRoomId().equals(theirs.getRoomId())));
+            verify(roomWriteBehind, never())
+                    .roomEnded(argThat(r -> r.getRoomId().equals(ours.getRoomId())));
+        } finally {
+            if (restored != null) GameLoop.unregisterRoom(restored);
+        }
+    }
+
+    @Test
+    void thousandsOfRoomsRestoreWithinASecond() throws Exception {
+        int roomCount = 5_000;
+        GameSession template = playedRoom(UUID.randomUUID().toString(), "b");
+        List<GameSession> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            GameSession room = new GameSession(UUID.randomUUID(), 2);
+            room.addPlayer(UUID.randomUUID().toString(), "p" + i, TestSessions.open());
+            room.addPlayer(UUID.randomUUID().toString(), "q" + i, TestSessions.open());
+            room.snapshotScores();
+            rooms.add(room);
+        }
+        rooms.add(template);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RoomCheckpointService.write(bytes, rooms, System.currentTimeMillis());
+        byte[] file = bytes.toByteArray();
+
+        long start = System.nanoTime();
+        List<GameSession> restored =
+                RoomCheckpointService.read(new ByteArrayInputStream(file)).rooms();
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        System.out.printf(
+                "Restored %d rooms (%d KB) in %.1f ms%n",
+                restored.size(), file.length / 1024, millis);
+
+        assertEquals(rooms.size(), restored.size());
+        assertTrue(millis < 1_000, "restore took " + millis + " ms");
+    }
+}
@@ -0,0 +1,92 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.dtos.GameRoomDto;
+import ch.multispace.backend.events.RoomsEventBroadcaster.RoomsEvent;
+import ch.multispace.backend.model.GameRoom;
+import ch.multispace.backend.repositories.GameRoomRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Pins that room events from any node keep the in-memory lobby current, and that a reload catches
+ * up with rows changed behind its back.
+ */
+@SpringBootTest
+class RoomDirectoryTest {
+
+    @Autowired private RoomDirectory roomDirectory;
+    @Autowired private GameRoomRepository gameRoomRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    private GameRoom room(String status) {
+        GameRoom room = new GameRoom();
+        room.setRoomName("directory");
+        room.setStatus(status);
+        room.setMaxPlayer(2);
+        return gameRoomRepository.save(room);
+    }
+
+    private boolean listed(UUID roomId) {
+        return roomDirectory.openRooms().stream().anyMatch(r -> r.roomId().equals(roomId));
+    }
+
+    @Test
+    void eventsFromAnyNodeKeepTheDirectoryCurrent() {
+        GameRoom room = room("WAITING");
+        GameRoomDto dto = GameRoomDto.from(room);
+        roomDirectory.apply(new RoomsEvent("room.created", dto));
+        assertTrue(listed(room.getRoomId()));
+
+        // relayed from another node: the payload arrives as a JSON tree
+        room.setStatus("STARTED");
+        room.setPlayerIds(List.of(UUID.randomUUID(), UUID.randomUUID()));
+        roomDirectory.apply(
+                new RoomsEvent("room.started", objectMapper.valueToTree(GameRoomDto.from(room))));
+        assertFalse(listed(room.getRoomId()));
+        GameRoomDto started = roomDirectory.find(room.getRoomId()).orElseThrow();
+        assertEquals("STARTED", started.status());
+        assertEquals(2, started.playerIds().size());
+        assertNull(started.live());
+
+        roomDirectory.apply(
+                new RoomsEvent("room.deleted", objectMapper.valueToTree(room.getRoomId())));
+        assertTrue(roomDirectory.find(room.getRoomId()).isEmpty());
+    }
+
+    @Test
+    void aReloadPicksUpRowsChangedBehindItsBack() {
+        GameRoom waiting = room("WAITING");
+        GameRoom ended = room(GameRoomService.STATUS_ENDED);
+        roomDirectory.reload();
+        assertTrue(listed(waiting.getRoomId()));
+        assertTrue(roomDirectory.find(ended.getRoomId()).isEmpty());
+
+        gameRoomRepository.delete(waiting);
+        roomDirectory.reload();
+        assertTrue(roomDirectory.find(waiting.getRoomId()).isEmpty());
+    }
+
+    @Test
+    void aRunningGameShowsItsLiveState() {
+        GameRoom room = room("WAITING");
+        roomDirectory.apply(new RoomsEvent("room.created", GameRoomDto.from(room)));
+        GameSession session = new GameSession(room.getRoomId(), 2);
+        GameLoop.registerRoom(session);
+        try {
+            GameRoomDto.Live live = roomDirectory.find(room.getRoomId()).orElseThrow().live();
+            assertEquals(session.getLevel(), live.level());
+            assertEquals(0, live.players());
+        } finally {
+            GameLoop.unregisterRoom(session);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import ch.multispace.backend.TestUsers;
+import ch.multispace.backend.events.RoomsEventBroadcaster;
+import ch.multispace.backend.model.GameRoom;
+import ch.multispace.backend.repositories.GameRoomRepository;
+import ch.multispace.backend.repositories.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Pins that leaves from one room coalesce into one write and one event sent after it, that a write
+ * the database refuses is retried rather than lost, and what an ended room leaves behind.
+ */
+@SpringBootTest
+class RoomWriteBehindTest {
+
+    @Autowired private RoomWriteBehind writeBehind;
+    @Autowired private GameRoomRepository gameRoomRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @MockitoBean private RoomsEventBroadcaster roomsEventBroadcaster;
+    @MockitoSpyBean private GameRoomService gameRoomService;
+
+    private GameRoom roomWith(List<UUID> players) {
+        GameRoom room = new GameRoom();
+        room.setRoomName("write-behind");
+        room.setStatus("STARTED");
+        room.setMaxPlayer(players.size());
+        room.setPlayerIds(new ArrayList<>(players));
+        return gameRoomRepository.save(room);
+    }
+
+    @Test
+    void departuresFromOneRoomCoalesceIntoOneWrite() {
+        List<UUID> players = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        GameRoom room = roomWith(players);
+
+        // hold the queue so the writer thread cannot flush between the two leaves
+        synchronized (writeBehind) {
+            writeBehind.playerLeft(room.getRoomId(), players.get(0));
+            writeBehind.playerLeft(room.getRoomId(), players.get(1));
+            assertEquals(1, writeBehind.getPendingCount());
+        }
+        writeBehind.flushAll();
+
+        verify(roomsEventBroadcaster, timeout(2_000).times(1)).broadcastRoomUpdated(any());
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(
+                        _ -> {
+                            GameRoom saved =
+                                    gameRoomRepository.findByRoomId(room.getRoomId()).orElseThrow();
+                            assertEquals(List.of(players.get(2)), saved.getPlayerIds());
+                            assertEquals("WAITING", saved.getStatus());
+                        });
+    }
+
+    @Test
+    void aRefusedWriteIsRetriedTogetherWithLaterChanges() throws Exception {
+        List<UUID> players = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        GameRoom room = roomWith(players);
+        long failedBefore = writeBehind.getFailedCount();
+        // the batch and the one-room retry both fail, the next attempt goes through
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .doThrow(new DataAccessResourceFailureException("database down"))
+                .doCallRealMethod()
+                .when(gameRoomService)
+                .lockRoom(room.getRoomId());
+
+        writeBehind.playerLeft(room.getRoomId(), players.get(0));
+        writeBehind.flushAll();
+        writeBehind.playerLeft(room.getRoomId(), players.get(1));
+
+        assertEquals(List.of(players.get(2)), playersOnceWritten(room, 1));
+        verify(gameRoomService, atLeast(3)).lockRoom(room.getRoomId());
+        assertEquals(failedBefore, writeBehind.getFailedCount());
+    }
+
+    @Test
+    void aRoomNobodyPlayedInIsOnlyDeletedWhenItEnds() {
+        List<UUID> players = List.of(UUID.randomUUID(), UUID.randomUUID());
+        GameRoom room = roomWith(players);
+
+        synchronized (writeBehind) {
+            writeBehind.playerLeft(room.getRoomId(), players.get(0));
+            writeBehind.roomEnded(new GameSession(room.getRoomId(), 2));
+        }
+        writeBehind.flushAll();
+
+        verify(roomsEventBroadcaster, timeout(2_000)).broadcastRoomDeleted(room.getRoomId());
+        verify(roomsEventBroadcaster, never()).broadcastRoomUpdated(any());
+        assertTrue(gameRoomRepository.findByRoomId(room.getRoomId()).isEmpty());
+    }
+
+    @Test
+    void aPlayedRoomIsKeptAsHistoryWithEachPlayersResult() throws Exception {
+        List<UUID> players = List.of(newUser(), newUser());
+        GameRoom room = roomWith(players);
+        GameSession session = new GameSession(room.getRoomId(), 2);
+        for (UUID player : players) {
+            session.addPlayer(player.toString(), "p", TestSessions.open());
+        }
+        session.update(GameLoop.TICK_MILLIS / 1000.0);
+        players.forEach(player -> session.removePlayer(player.toString()));
+
+        writeBehind.roomEnded(session);
+        writeBehind.flushAll();
+
+        verify(roomsEventBroadcaster, timeout(2_000)).broadcastRoomDeleted(room.getRoomId());
+        GameRoom ended = gameRoomRepository.findByRoomId(room.getRoomId()).orElseThrow();
+        assertEquals(GameRoomService.STATUS_ENDED, ended.getStatus());
+        assertEquals(1, ended.getWave());
+        assertTrue(ended.getEndedAt() != null);
+        assertEquals(2, resultsOf(room));
+        assertTrue(session.isScoresPersisted());
+
+        // the sockets closing after the match must not delete the history
+        writeBehind.roomEnded(session);
+        writeBehind.flushAll();
+        assertTrue(gameRoomRepository.findByRoomId(room.getRoomId()).isPresent());
+    }
+
+    /** The room's persisted players, once the writer has brought them down to left (up to 3 s). */
+    private List<UUID> playersOnceWritten(GameRoom room, int left) throws InterruptedException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long deadline = System.currentTimeMillis() + 3_000;
+        List<UUID> playerIds;
+        do {
+            Thread.sleep(20);
+            playerIds =
+                    tx.execute(
+                            _ ->
+                                    List.copyOf(
+                                            gameRoomRepository
+                                                    .findByRoomId(room.getRoomId())
+                                                    .orElseThrow()
+                                                    .getPlayerIds()));
+        } while (playerIds.size() > left && System.currentTimeMillis() < deadline);
+        return playerIds;
+    }
+
+    /** Results the writer thread has stored for the room, once it has caught up (up to 2 s). */
+    private int resultsOf(GameRoom room) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        int count;
+        do {
+            Thread.sleep(20);
+            count =
+                    jdbcTemplate.queryForObject(
+                            "SELECT COUNT(*) FROM game_results WHERE session_id = ?",
+                            Integer.class,
+                            room.getRoomId());
+        } while (count < 2 && System.currentTimeMillis() < deadline);
+        return count;
+    }
+
+    private UUID newUser() {
+        return TestUsers.save(userRepository, "wb").getId();
+    }
+}
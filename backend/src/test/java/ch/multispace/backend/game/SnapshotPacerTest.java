@@ -0,0 +1,80 @@
+package ch.multispace.backend.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A congested link gets fewer snapshots, a recovered one gets the full tick rate back, and a long
+ * but steady link is not mistaken for a congested one.
+ */
+class SnapshotPacerTest {
+
+    private static final double FULL_RATE_HZ = 1000.0 / GameLoop.TICK_MILLIS;
+
+    // ticks until the pacer next hands out a snapshot, for a connection in the given state
+    private static int ticksToNextSnapshot(SnapshotPacer pacer, long buffered, double rttMs) {
+        int ticks = 1;
+        while (!pacer.isDue(buffered, rttMs)) ticks++;
+        return ticks;
+    }
+
+    @Test
+    void aHealthyConnectionGetsEveryTick() {
+        SnapshotPacer pacer = new SnapshotPacer();
+        for (int i = 0; i < 100; i++) assertTrue(pacer.isDue(0, 40));
+        assertEquals(FULL_RATE_HZ, pacer.getRateHz(), 1e-9);
+    }
+
+    @Test
+    void aDistantButSteadyConnectionGetsEveryTick() {
+        SnapshotPacer pacer = new SnapshotPacer();
+        // well past a baseline window, so a re-taken baseline is covered too
+        for (int i = 0; i < 2_000; i++) assertTrue(pacer.isDue(0, 300));
+        assertEquals(FULL_RATE_HZ, pacer.getRateHz(), 1e-9);
+    }
+
+    @Test
+    void aBackloggedConnectionBacksOffAndGetsNothingUntilItDrains() {
+        SnapshotPacer pacer = new SnapshotPacer();
+        // every due tick finds a backlog: the interval doubles and nothing is queued behind it
+        for (int i = 0; i < 100; i++) assertFalse(pacer.isDue(64 * 1024, 40));
+        assertEquals(FULL_RATE_HZ / SnapshotPacer.MAX_INTERVAL_TICKS, pacer.getRateHz(), 1e-9);
+
+        // drained: the next due tick sends again
+        assertTrue(ticksToNextSnapshot(pacer, 0, 40) <= SnapshotPacer.MAX_INTERVAL_TICKS);
+    }
+
+    @Test
+    void risingRttOrAFailedSendBacksOffButStillSends() {
+        SnapshotPacer pacer = new SnapshotPacer();
+        assertTrue(pacer.isDue(0, 300));
+        // 300 ms is this link's baseline; queueing half of it again on top is congestion
+        assertTrue(pacer.isDue(0, 460));
+        assertEquals(FULL_RATE_HZ / 2, pacer.getRateHz(), 1e-9);
+
+        pacer.onSendFailure();
+        assertEquals(2, ticksToNextSnapshot(pacer, 0, 40));
+        assertEquals(FULL_RATE_HZ / 4, pacer.getRateHz(), 1e-9);
+    }
+
+    @Test
+    void recoveryIsOneStepPerRunOfHealthySends() {
+        SnapshotPacer pacer = new SnapshotPacer();
+        pacer.isDue(0, 40);
+        while (pacer.getRateHz() > FULL_RATE_HZ / SnapshotPacer.MAX_INTERVAL_TICKS) {
+            pacer.isDue(0, 400);
+        }
+        // 30 healthy sends at interval 8 shorten it to 7, and so on back to every tick
+        int sends = 0;
+        while (pacer.getRateHz() < FULL_RATE_HZ) {
+            double before = pacer.getRateHz();
+            ticksToNextSnapshot(pacer, 0, 40);
+            sends++;
+            assertTrue(pacer.getRateHz() >= before);
+        }
+        assertEquals(30 * (SnapshotPacer.MAX_INTERVAL_TICKS - 1), sends);
+    }
+}
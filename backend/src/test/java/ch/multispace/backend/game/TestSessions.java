@@ -0,0 +1,20 @@
+package ch.multispace.backend.game;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.springframework.web.socket.WebSocketSession;
+
+/** WebSocket sessions for tests that seat players without a real connection. */
+final class TestSessions {
+
+    private TestSessions() {}
+
+    /** An open session; stubOnly, so tests that send thousands of snapshots keep no call log. */
+    static WebSocketSession open() {
+        WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
@@ -0,0 +1,144 @@
+package ch.multispace.backend.score;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.TestUsers;
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.dtos.PlayerRankDto;
+import ch.multispace.backend.model.PlayerEntity;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.PlayerRepository;
+import ch.multispace.backend.repositories.UserRepository;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Pins that committed results move the in-memory board without a reload, that it serves what the
+ * players table holds, and that a rising player is listed once.
+ */
+@SpringBootTest
+class HighScoreBoardTest {
+
+    @Autowired private HighScoreBoard highScoreBoard;
+    @Autowired private ScoreService scoreService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlayerRepository playerRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User user(boolean withProfile) {
+        User user = TestUsers.save(userRepository, "board");
+        if (withProfile) playerRepository.save(PlayerEntity.builder().user(user).build());
+        return user;
+    }
+
+    @Test
+    void aCommittedResultMovesThePlayerWithoutAReload() {
+        User user = user(true);
+        highScoreBoard.reload();
+
+        scoreService.persistRoomScores(Map.of(user.getId(), (long) Integer.MAX_VALUE));
+        scoreService.flush();
+
+        assertEquals(
+                new LeaderboardRowDto(user.getUsername(), Integer.MAX_VALUE),
+                highScoreBoard.top(1).getFirst());
+    }
+
+    @Test
+    void aProfileCreatedByAResultJoinsTheBoard() {
+        User user = user(false);
+        highScoreBoard.reload();
+
+        scoreService.persistRoomScores(Map.of(user.getId(), 4_321L));
+        scoreService.flush();
+
+        assertTrue(
+                highScoreBoard
+                        .top(highScoreBoard.size())
+                        .contains(new LeaderboardRowDto(user.getUsername(), 4_321)));
+    }
+
+    @Test
+    void theBoardMatchesThePlayersTable() {
+        User first = user(true);
+        User second = user(true);
+        highScoreBoard.reload();
+        scoreService.persistRoomScores(Map.of(first.getId(), 900L, second.getId(), 1_200L));
+        scoreService.flush();
+
+        List<Integer> table =
+                jdbcTemplate.queryForList(
+                        "SELECT COALESCE(high_score, 0) FROM players ORDER BY 1 DESC",
+                        Integer.class);
+        List<Integer> board =
+                highScoreBoard.top(highScoreBoard.size()).stream()
+                        .map(LeaderboardRowDto::getScore)
+                        .toList();
+        assertEquals(table, board);
+        assertEquals(3, highScoreBoard.top(3).size());
+    }
+
+    @Test
+    void aRankCountsOnlyStrictlyHigherScores() {
+        User first = user(true);
+        User tied = user(true);
+        highScoreBoard.reload();
+        scoreService.persistRoomScores(Map.of(first.getId(), 777_777L, tied.getId(), 777_777L));
+        scoreService.flush();
+
+        int higher =
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM players WHERE high_score > 777777", Integer.class);
+        PlayerRankDto rank = highScoreBoard.rankOf(first.getId(), 3).orElseThrow();
+        assertEquals(higher + 1, rank.me().rank());
+        assertEquals(777_777, rank.me().score());
+        assertEquals(
+                rank.me().rank(), highScoreBoard.rankOf(tied.getId(), 0).orElseThrow().me().rank());
+        assertEquals(highScoreBoard.size(), rank.players());
+
+        // the neighbours are the rows right around the player's own, in board order
+        List<LeaderboardRowDto> board = highScoreBoard.top(highScoreBoard.size());
+        int at = board.indexOf(new LeaderboardRowDto(first.getUsername(), 777_777));
+        assertEquals(
+                board.subList(Math.max(0, at - 3), at).stream()
+                        .map(LeaderboardRowDto::getPlayer)
+                        .toList(),
+                rank.above().stream().map(row -> row.player()).toList());
+        assertEquals(
+                board.subList(at + 1, Math.min(board.size(), at + 4)).stream()
+                        .map(LeaderboardRowDto::getPlayer)
+                        .toList(),
+                rank.below().stream().map(row -> row.player()).toList());
+        assertTrue(highScoreBoard.rankOf(UUID.randomUUID(), 3).isEmpty());
+    }
+
+    @Test
+    void aPlayerMovingUpIsNeverListedTwice() throws Exception {
+        UUID climber = UUID.randomUUID();
+        highScoreBoard.playerCreated(climber, "climber-" + climber.toString().substring(0, 8));
+        Thread writer =
+                Thread.ofPlatform()
+                        .start(
+                                () -> {
+                                    for (int score = 1; score <= 20_000; score++) {
+                                        highScoreBoard.recordBests(Map.of(climber, score));
+                                    }
+                                });
+        while (writer.isAlive()) {
+            List<LeaderboardRowDto> rows = highScoreBoard.top(highScoreBoard.size() + 1);
+            assertEquals(
+                    rows.size(),
+                    new HashSet<>(rows.stream().map(LeaderboardRowDto::getPlayer).toList()).size());
+        }
+        writer.join();
+        // the climber has no players row; leave the board as the table has it
+        highScoreBoard.reload();
+    }
+}
@@ -0,0 +1,60 @@
+package ch.multispace.backend.score;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.dtos.LeaderboardDeltaDto;
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.dtos.RankedRowDto;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Clients apply deltas to the rows they hold, so a delta must carry exactly what moved. */
+class LeaderboardStreamTest {
+
+    @Test
+    void equalScoresShareARank() {
+        List<RankedRowDto> ranked =
+                LeaderboardStream.ranked(
+                        List.of(
+                                new LeaderboardRowDto("a", 30),
+                                new LeaderboardRowDto("b", 20),
+                                new LeaderboardRowDto("c", 20),
+                                new LeaderboardRowDto("d", 10)));
+        assertEquals(
+                List.of(
+                        new RankedRowDto(1, "a", 30),
+                        new RankedRowDto(2, "b", 20),
+                        new RankedRowDto(2, "c", 20),
+                        new RankedRowDto(4, "d", 10)),
+                ranked);
+    }
+
+    @Test
+    void aDeltaCarriesOnlyTheRowsThatMoved() {
+        List<RankedRowDto> before =
+                List.of(
+                        new RankedRowDto(1, "a", 30),
+                        new RankedRowDto(2, "b", 20),
+                        new RankedRowDto(3, "c", 10));
+        // d enters above b, pushing b down and c out; a is untouched
+        List<RankedRowDto> after =
+                List.of(
+                        new RankedRowDto(1, "a", 30),
+                        new RankedRowDto(2, "d", 25),
+                        new RankedRowDto(3, "b", 20));
+        LeaderboardDeltaDto delta = LeaderboardStream.diff(before, after);
+        assertEquals(
+                List.of(new RankedRowDto(2, "d", 25), new RankedRowDto(3, "b", 20)),
+                delta.changed());
+        assertEquals(List.of("c"), delta.removed());
+    }
+
+    @Test
+    void anUnchangedBoardGivesAnEmptyDelta() {
+        List<RankedRowDto> rows = List.of(new RankedRowDto(1, "a", 30));
+        LeaderboardDeltaDto delta = LeaderboardStream.diff(rows, List.copyOf(rows));
+        assertTrue(delta.changed().isEmpty());
+        assertTrue(delta.removed().isEmpty());
+    }
+}
@@ -0,0 +1,33 @@
+package ch.multispace.backend.score;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class RankTreeTest {
+
+    @Test
+    void positionsMatchASortedSetThroughRandomChurn() {
+        Random random = new Random(42);
+        RankTree<Integer> tree = new RankTree<>(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+            if (expected.add(value)) {
+                tree.add(value);
+            } else {
+                expected.remove(value);
+                tree.remove(value);
+            }
+            int probe = random.nextInt(2_100) - 50;
+            assertEquals(expected.headSet(probe, false).size(), tree.countBefore(probe));
+        }
+        assertEquals(expected.size(), tree.size());
+        assertFalse(tree.remove(-1));
+    }
+}
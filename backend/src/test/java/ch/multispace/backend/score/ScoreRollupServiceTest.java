@@ -0,0 +1,122 @@
+package ch.multispace.backend.score;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.multispace.backend.TestUsers;
+import ch.multispace.backend.dtos.LeaderboardRowDto;
+import ch.multispace.backend.model.RollupPeriod;
+import ch.multispace.backend.model.ScoreRollup;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.ScoreRollupRepository;
+import ch.multispace.backend.repositories.UserRepository;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Pins that results land in the right UTC day and ISO week, and that a rebuild from game_results
+ * gives the same rollups. Each test uses its own past week, so tests never share a window.
+ */
+@SpringBootTest
+class ScoreRollupServiceTest {
+
+    @Autowired private ScoreRollupService scoreRollupService;
+    @Autowired private MatchResultWriter matchResultWriter;
+    @Autowired private ScoreRollupRepository scoreRollupRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private static MatchResult result(User user, long score, OffsetDateTime at) {
+        return new MatchResult(null, user.getId(), score, 3, 10, at);
+    }
+
+    private ScoreRollup rollup(RollupPeriod period, LocalDate start, User user) {
+        return scoreRollupRepository
+                .findById(new ScoreRollup.Key(period, start, user.getId()))
+                .orElseThrow();
+    }
+
+    /** Results are written by the writer thread or by flush(), whichever drains them first. */
+    private void awaitWeekGames(LocalDate weekStart, User user, int games)
+            throws InterruptedException {
+        matchResultWriter.flush();
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (System.currentTimeMillis() < deadline) {
+            var row =
+                    scoreRollupRepository.findById(
+                            new ScoreRollup.Key(RollupPeriod.WEEK, weekStart, user.getId()));
+            if (row.isPresent() && row.get().getGamesPlayed() == games) return;
+            Thread.sleep(20);
+        }
+        throw new AssertionError("rollup of " + user.getUsername() + " never reached " + games);
+    }
+
+    @Test
+    void resultsAreRolledUpIntoTheirDayAndWeek() throws InterruptedException {
+        User alice = TestUsers.save(userRepository, "rollup");
+        User bob = TestUsers.save(userRepository, "rollup");
+        // Monday 2020-03-02 and Sunday 2020-03-08 are the same ISO week; 23:30 at +01:00 is
+        // still Sunday in UTC
+        OffsetDateTime monday = OffsetDateTime.of(2020, 3, 2, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime sunday = OffsetDateTime.of(2020, 3, 8, 23, 30, 0, 0, ZoneOffset.ofHours(1));
+        LocalDate weekStart = LocalDate.of(2020, 3, 2);
+
+        matchResultWriter.record(
+                List.of(
+                        result(alice, 300, monday),
+                        result(alice, 900, sunday),
+                        result(bob, 500, monday)));
+        awaitWeekGames(weekStart, alice, 2);
+
+        ScoreRollup week = rollup(RollupPeriod.WEEK, weekStart, alice);
+        assertEquals(900, week.getBestScore());
+        assertEquals(1_200, week.getTotalScore());
+        assertEquals(300, rollup(RollupPeriod.DAY, weekStart, alice).getBestScore());
+        assertEquals(900, rollup(RollupPeriod.DAY, LocalDate.of(2020, 3, 8), alice).getBestScore());
+
+        assertEquals(
+                List.of(
+                        new LeaderboardRowDto(bob.getUsername(), 500),
+                        new LeaderboardRowDto(alice.getUsername(), 300)),
+                scoreRollupService.top(RollupPeriod.DAY, LocalDate.of(2020, 3, 2), 10));
+        assertEquals(
+                List.of(
+                        new LeaderboardRowDto(alice.getUsername(), 900),
+                        new LeaderboardRowDto(bob.getUsername(), 500)),
+                scoreRollupService.top(RollupPeriod.WEEK, LocalDate.of(2020, 3, 5), 10));
+        assertEquals(1, scoreRollupService.top(RollupPeriod.WEEK, weekStart, 1).size());
+    }
+
+    @Test
+    void aRebuildRecomputesWindowsFromGameResults() throws InterruptedException {
+        User carol = TestUsers.save(userRepository, "rollup");
+        OffsetDateTime tuesday = OffsetDateTime.of(2020, 4, 7, 8, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime friday = OffsetDateTime.of(2020, 4, 10, 8, 0, 0, 0, ZoneOffset.UTC);
+        LocalDate weekStart = LocalDate.of(2020, 4, 6);
+
+        matchResultWriter.record(List.of(result(carol, 250, tuesday), result(carol, 750, friday)));
+        awaitWeekGames(weekStart, carol, 2);
+
+        // drift the rollups away from game_results, then rebuild the whole week both ways
+        jdbcTemplate.update(
+                "UPDATE score_rollups SET best_score = 1, total_score = 1, games_played = 9"
+                        + " WHERE user_id = ?",
+                carol.getId());
+        assertEquals(
+                7, scoreRollupService.rebuild(RollupPeriod.DAY, weekStart, weekStart.plusDays(6)));
+        assertEquals(1, scoreRollupService.rebuild(RollupPeriod.WEEK, weekStart, weekStart));
+
+        ScoreRollup week = rollup(RollupPeriod.WEEK, weekStart, carol);
+        assertEquals(750, week.getBestScore());
+        assertEquals(1_000, week.getTotalScore());
+        assertEquals(2, week.getGamesPlayed());
+        ScoreRollup day = rollup(RollupPeriod.DAY, LocalDate.of(2020, 4, 7), carol);
+        assertEquals(250, day.getBestScore());
+        assertEquals(1, day.getGamesPlayed());
+    }
+}
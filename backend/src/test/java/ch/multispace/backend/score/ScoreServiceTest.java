@@ -0,0 +1,101 @@
+package ch.multispace.backend.score;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.multispace.backend.TestUsers;
+import ch.multispace.backend.model.PlayerEntity;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.PlayerRepository;
+import ch.multispace.backend.repositories.UserRepository;
+import ch.multispace.backend.services.IdentityCache;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Pins that batched results for one user add up, and that a missing profile or account does not
+ * fail the rest of the batch.
+ */
+@SpringBootTest
+class ScoreServiceTest {
+
+    @Autowired private ScoreService scoreService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlayerRepository playerRepository;
+    @Autowired private IdentityCache identityCache;
+
+    private User user(boolean withProfile) {
+        User user = TestUsers.save(userRepository, "score");
+        if (withProfile) {
+            PlayerEntity player = PlayerEntity.builder().user(user).build();
+            player.setTotalScore(1_000);
+            player.setGamesPlayed(3);
+            player.setHighScore(500);
+            playerRepository.save(player);
+        }
+        return user;
+    }
+
+    private PlayerEntity profileOf(User user) {
+        return playerRepository.findByUser(user).orElseThrow();
+    }
+
+    @Test
+    void resultsOfRoomsFinishingTogetherAddUp() {
+        User user = user(true);
+
+        scoreService.persistRoomScores(Map.of(user.getId(), 100L));
+        scoreService.persistRoomScores(Map.of(user.getId(), 700L));
+        scoreService.persistRoomScores(Map.of(user.getId(), 200L));
+        scoreService.flush();
+
+        PlayerEntity player = profileOf(user);
+        assertEquals(2_000, player.getTotalScore());
+        assertEquals(6, player.getGamesPlayed());
+        assertEquals(700, player.getHighScore());
+    }
+
+    @Test
+    void aLowerScoreNeverLowersTheHighScore() {
+        User user = user(true);
+
+        scoreService.persistRoomScores(Map.of(user.getId(), 40L));
+        scoreService.flush();
+
+        assertEquals(500, profileOf(user).getHighScore());
+        assertEquals(1_040, profileOf(user).getTotalScore());
+    }
+
+    @Test
+    void aMissingProfileIsCreatedAndUnknownUsersAreSkipped() {
+        User withProfile = user(true);
+        User withoutProfile = user(false);
+
+        scoreService.persistRoomScores(
+                Map.of(
+                        withProfile.getId(), 10L,
+                        withoutProfile.getId(), 250L,
+                        UUID.randomUUID(), 999L));
+        scoreService.flush();
+
+        assertEquals(0, scoreService.getPendingCount());
+        assertEquals(1_010, profileOf(withProfile).getTotalScore());
+        PlayerEntity created = profileOf(withoutProfile);
+        assertEquals(250, created.getTotalScore());
+        assertEquals(1, created.getGamesPlayed());
+        assertEquals(250, created.getHighScore());
+    }
+
+    @Test
+    void aBatchDropsTheCachedProfilesItRewrites() {
+        User user = user(true);
+        assertEquals(500, identityCache.playerOf(user).orElseThrow().getHighScore());
+
+        scoreService.persistRoomScores(Map.of(user.getId(), 1_234L));
+        scoreService.flush();
+
+        assertEquals(1_234, identityCache.playerOf(user).orElseThrow().getHighScore());
+    }
+}
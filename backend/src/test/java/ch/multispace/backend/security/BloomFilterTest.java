@@ -0,0 +1,24 @@
+package ch.multispace.backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAnAddedValueAndRarelyMatchesAnotherOne() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            String id = "added-" + i;
+            filter.add(id);
+            assertTrue(filter.mightContain(id));
+        }
+        int positives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) positives++;
+        }
+        assertTrue(positives < 300, positives + " false positives in 10000");
+    }
+}
@@ -1,6 +1,7 @@
 package ch.multispace.backend.security;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import io.jsonwebtoken.Jwts;
@@ -9,6 +10,7 @@ import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Date;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.userdetails.User;
@@ -55,6 +57,24 @@ class JwtServiceTest {
                 JwtService.InvalidJwtException.class, () -> jwtService.extractUsername(forged));
     }
 
+    @Test
+    void aRepeatedTokenIsVerifiedOnceAndStillExpires() throws InterruptedException {
+        JwtService svc = new JwtService();
+        ReflectionTestUtils.setField(svc, "secretKey", TEST_SECRET);
+        ReflectionTestUtils.setField(svc, "expirationMs", 2_000L);
+        svc.validateKeyOnStartup();
+        String token = svc.generateTokenForWebSocket(user, UUID.randomUUID());
+
+        JwtService.VerifiedToken first = svc.verify(token);
+        assertSame(first, svc.verify(token));
+        assertEquals(1, svc.verifiedTokenStats().misses());
+        assertEquals(1, svc.verifiedTokenStats().hits());
+
+        // jjwt keeps whole seconds, so the token lives 1-2 s
+        Thread.sleep(2_100);
+        assertThrows(JwtService.InvalidJwtException.class, () -> svc.verify(token));
+    }
+
     @Test
     void startupFailsWhenSecretIsBlank() {
         JwtService svc = new JwtService();
@@ -0,0 +1,39 @@
+package ch.multispace.backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.security.LoginRateLimiter.SlidingWindow;
+import org.junit.jupiter.api.Test;
+
+class LoginRateLimiterTest {
+
+    private static final long WINDOW = 60_000_000_000L;
+
+    @Test
+    void attemptsOverTheLimitAreRefusedUntilTheWindowSlides() {
+        SlidingWindow window = new SlidingWindow(WINDOW, 0);
+        for (int i = 0; i < 10; i++) assertEquals(0, window.tryAcquire(10, i));
+        assertTrue(window.tryAcquire(10, 10) > 0);
+
+        // half a window later, half of the previous window's attempts still count
+        long halfway = WINDOW + WINDOW / 2;
+        for (int i = 0; i < 5; i++) assertEquals(0, window.tryAcquire(10, halfway));
+        assertTrue(window.tryAcquire(10, halfway) > 0);
+
+        // two windows of silence forget everything
+        long later = 3 * WINDOW;
+        assertTrue(window.idle(later));
+        for (int i = 0; i < 10; i++) assertEquals(0, window.tryAcquire(10, later));
+        assertFalse(window.idle(later));
+    }
+
+    @Test
+    void refusedAttemptsDoNotCount() {
+        SlidingWindow window = new SlidingWindow(WINDOW, 0);
+        assertEquals(0, window.tryAcquire(1, 0));
+        for (int i = 0; i < 100; i++) assertTrue(window.tryAcquire(1, 1) > 0);
+        assertEquals(0, window.tryAcquire(1, 2 * WINDOW));
+    }
+}
@@ -0,0 +1,66 @@
+package ch.multispace.backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.exceptions.TooManyRequestsException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PasswordHasherTest {
+
+    private static PasswordHasher hasher(int threads, int queue) {
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "hashThreads", threads);
+        ReflectionTestUtils.setField(hasher, "hashQueue", queue);
+        hasher.start();
+        return hasher;
+    }
+
+    @Test
+    void hashesOnItsOwnThreads() {
+        PasswordHasher hasher = hasher(1, 4);
+        try {
+            String hash = hasher.encode("Passw0rd!");
+            assertTrue(hasher.matches("Passw0rd!", hash));
+            assertFalse(hasher.matches("wrong", hash));
+            assertEquals(3, hasher.stats().hashTimes().count());
+        } finally {
+            hasher.stop();
+        }
+    }
+
+    @Test
+    void aFullQueueIsRefusedAtOnce() throws Exception {
+        PasswordHasher hasher = hasher(1, 1);
+        String hash = hasher.encode("Passw0rd!");
+        int callers = 16;
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> hasher.matches("Passw0rd!", hash)));
+            }
+            int refused = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    assertTrue(result.get());
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof TooManyRequestsException);
+                    refused++;
+                }
+            }
+            // one running and one waiting at a time: most of a simultaneous burst is turned away
+            assertTrue(refused > 0);
+            assertEquals(refused, hasher.stats().rejected());
+        } finally {
+            hasher.stop();
+        }
+    }
+}
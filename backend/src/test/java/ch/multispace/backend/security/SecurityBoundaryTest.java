@@ -80,10 +80,11 @@ class SecurityBoundaryTest {
     @Test
     void theSseStreamRejectsAMissingToken() throws Exception {
         mockMvc.perform(get("/api/rooms/stream")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/leaderboard/stream")).andExpect(status().isUnauthorized());
     }
 
     // A syntactically valid JWT, correctly shaped and unexpired, but signed with a key
-    // the server never issued it with. jwtService.validateTokenForWebSocket rejects it
+    // the server never issued it with. jwtService.verify rejects it
     // with JwtService.InvalidJwtException, which GlobalExceptionHandler translates to
     // 401 rather than letting it fall through as a 500.
     @Test
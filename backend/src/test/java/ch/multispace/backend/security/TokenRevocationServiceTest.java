@@ -0,0 +1,87 @@
+package ch.multispace.backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.multispace.backend.TestUsers;
+import ch.multispace.backend.model.User;
+import ch.multispace.backend.repositories.UserRepository;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Pins that a revocation recorded by another node is seen here after the next refresh, and that
+ * expired ones are dropped.
+ */
+@SpringBootTest
+class TokenRevocationServiceTest {
+
+    @Autowired private TokenRevocationService tokenRevocationService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private static JwtService.VerifiedToken token(User user, long validForMs) {
+        return new JwtService.VerifiedToken(
+                UUID.randomUUID().toString(),
+                user.getEmail(),
+                user.getId().toString(),
+                new Date(System.currentTimeMillis() + validForMs));
+    }
+
+    private void revokedElsewhere(
+            JwtService.VerifiedToken token, User user, OffsetDateTime expiry) {
+        jdbcTemplate.update(
+                "INSERT INTO sessions (id, token, user_id, created_at, expires_at)"
+                        + " VALUES (?, ?, ?, ?, ?)",
+                UUID.randomUUID(),
+                token.tokenId(),
+                user.getId(),
+                OffsetDateTime.now(),
+                expiry);
+    }
+
+    @Test
+    void aRevocationFromAnotherNodeArrivesOnTheNextRefresh() {
+        User user = TestUsers.save(userRepository, "revoke");
+        JwtService.VerifiedToken token = token(user, 60_000);
+        revokedElsewhere(token, user, OffsetDateTime.now().plusMinutes(1));
+        assertFalse(tokenRevocationService.isRevoked(token));
+
+        tokenRevocationService.refresh();
+
+        assertTrue(tokenRevocationService.isRevoked(token));
+    }
+
+    @Test
+    void expiredRevocationsArePurged() {
+        User user = TestUsers.save(userRepository, "revoke");
+        JwtService.VerifiedToken token = token(user, 60_000);
+        revokedElsewhere(token, user, OffsetDateTime.now().minusSeconds(1));
+
+        tokenRevocationService.reload();
+
+        assertFalse(tokenRevocationService.isRevoked(token));
+        Integer rows =
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM sessions WHERE token = ?",
+                        Integer.class,
+                        token.tokenId());
+        assertEquals(0, rows);
+    }
+
+    @Test
+    void tokensWithoutAnIdAreNeverRevoked() {
+        User user = TestUsers.save(userRepository, "revoke");
+        JwtService.VerifiedToken legacy =
+                new JwtService.VerifiedToken(
+                        null, user.getEmail(), null, new Date(System.currentTimeMillis() + 60_000));
+        assertFalse(tokenRevocationService.revoke(legacy, user));
+        assertFalse(tokenRevocationService.isRevoked(legacy));
+    }
+}
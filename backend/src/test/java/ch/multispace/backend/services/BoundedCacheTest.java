@@ -0,0 +1,55 @@
+package ch.multispace.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+
+    @Test
+    void theLeastRecentlyUsedEntryIsEvictedFirst() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", key -> key + loads.incrementAndGet());
+        cache.get("b", key -> key + loads.incrementAndGet());
+        cache.get("a", key -> key + loads.incrementAndGet()); // a is now newer than b
+        cache.get("c", key -> key + loads.incrementAndGet()); // evicts b
+
+        assertEquals("a1", cache.get("a", key -> key + loads.incrementAndGet()));
+        assertEquals("b4", cache.get("b", key -> key + loads.incrementAndGet()));
+        assertEquals(new BoundedCache.Stats(2, 4, 2, 2), cache.stats());
+    }
+
+    @Test
+    void expiredEntriesAndMissesAreLoadedAgain() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMillis(20));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", key -> key + loads.incrementAndGet());
+        Thread.sleep(40);
+        assertEquals("a2", cache.get("a", key -> key + loads.incrementAndGet()));
+
+        // absent values are not cached
+        cache.get("none", _ -> null);
+        assertEquals("found", cache.get("none", _ -> "found"));
+    }
+
+    @Test
+    void aLoadOverlappingAnInvalidationIsNotStored() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+        String stale =
+                cache.get(
+                        "a",
+                        key -> {
+                            cache.invalidate(key); // a concurrent write lands mid-load
+                            return "stale";
+                        });
+
+        assertEquals("stale", stale);
+        assertEquals("fresh", cache.get("a", _ -> "fresh"));
+    }
+}
@@ -0,0 +1,31 @@
+package ch.multispace.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Identity lookups are served from memory after the first one; a user registered through the
+ * application is already cached.
+ */
+@SpringBootTest
+class IdentityCacheTest {
+
+    @Autowired private IdentityCache identityCache;
+    @Autowired private AuthService authService;
+
+    @Test
+    void repeatedLookupsOfARegisteredUserNeverMiss() {
+        String name = "ident-" + UUID.randomUUID().toString().substring(0, 8);
+        authService.register(name + "@example.com", name, "Passw0rd!");
+        long misses = identityCache.userStats().misses();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(name, identityCache.displayName(name + "@example.com"));
+        }
+        assertEquals(misses, identityCache.userStats().misses());
+    }
+}
@@ -0,0 +1,10 @@
+-- Existing environments only: adds the cluster membership table the room router
+-- heartbeats into (ClusterMember). A fresh volume gets it from init.sql.
+-- Apply by hand with psql before deploying the backend that maps it.
+
+CREATE TABLE IF NOT EXISTS public.cluster_members (
+    node_id character varying(255) NOT NULL,
+    base_url character varying(255),
+    last_seen_at timestamp(6) with time zone NOT NULL,
+    CONSTRAINT cluster_members_pkey PRIMARY KEY (node_id)
+);
@@ -0,0 +1,13 @@
+-- Existing environments only: makes players.high_score NOT NULL and adds the
+-- index the keyset-paginated leaderboard seeks on (PlayerRepository).
+--
+-- Postgres sorts NULLs first under ORDER BY ... DESC, so a NULL high_score
+-- would head page 1 and never be reached by the (high_score, id) seek.
+-- HighScoreBoard already reads NULL as 0; the backfill makes that explicit.
+
+UPDATE public.players SET high_score = 0 WHERE high_score IS NULL;
+
+ALTER TABLE public.players ALTER COLUMN high_score SET NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS players_high_score_id_idx
+    ON public.players USING btree (high_score, id);
@@ -0,0 +1,6 @@
+-- Existing environments only: adds the index time-range reads of game_results
+-- seek on, such as the rollup rebuild (ScoreRollupService). Without it they read
+-- the whole table.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS game_results_created_at_idx
+    ON public.game_results USING btree (created_at);
@@ -0,0 +1,21 @@
+-- Existing environments only: adds the per-day and per-week score rollups behind
+-- the daily and weekly leaderboards (ScoreRollup). A fresh volume gets them from
+-- init.sql. Apply by hand with psql before deploying the backend that maps them.
+--
+-- The table starts empty. To fill it from the match history already in
+-- game_results, start the backend once with app.rollups.rebuild-days-on-start set
+-- (environment variable APP_ROLLUPS_REBUILDDAYSONSTART).
+
+CREATE TABLE IF NOT EXISTS public.score_rollups (
+    best_score integer NOT NULL,
+    games_played integer NOT NULL,
+    period_start date NOT NULL,
+    total_score bigint NOT NULL,
+    user_id uuid NOT NULL,
+    period character varying(255) NOT NULL,
+    CONSTRAINT score_rollups_pkey PRIMARY KEY (period, period_start, user_id),
+    CONSTRAINT score_rollups_user_id_fkey FOREIGN KEY (user_id) REFERENCES public.users(id)
+);
+
+CREATE INDEX IF NOT EXISTS score_rollups_board_idx
+    ON public.score_rollups USING btree (period, period_start, best_score, user_id);
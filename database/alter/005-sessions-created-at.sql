@@ -0,0 +1,6 @@
+-- Existing environments only: adds the index the token revocation filter's
+-- reload range-scans sessions by (TokenRevocationService). Without it every
+-- reload reads the whole table.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS sessions_created_at_idx
+    ON public.sessions USING btree (created_at);
@@ -20,6 +20,12 @@
 -- renamed to GameRoom. ddl-auto: update never drops anything, which is how dead
 -- schema accumulates unnoticed. A fresh environment should not recreate them.
 
+CREATE TABLE public.cluster_members (
+    node_id character varying(255) NOT NULL,
+    base_url character varying(255),
+    last_seen_at timestamp(6) with time zone NOT NULL
+);
+
 CREATE TABLE public.game_results (
     enemies_killed integer,
     final_score integer,
@@ -57,12 +63,21 @@ CREATE TABLE public.leaderboard (
 
 CREATE TABLE public.players (
     games_played integer DEFAULT 0,
-    high_score integer DEFAULT 0,
+    high_score integer DEFAULT 0 NOT NULL,
     total_score bigint DEFAULT 0,
     id uuid NOT NULL,
     user_id uuid NOT NULL
 );
 
+CREATE TABLE public.score_rollups (
+    best_score integer NOT NULL,
+    games_played integer NOT NULL,
+    period_start date NOT NULL,
+    total_score bigint NOT NULL,
+    user_id uuid NOT NULL,
+    period character varying(255) NOT NULL
+);
+
 CREATE TABLE public.sessions (
     created_at timestamp(6) with time zone,
     expires_at timestamp(6) with time zone,
@@ -79,6 +94,9 @@ CREATE TABLE public.users (
     username character varying(255) NOT NULL
 );
 
+ALTER TABLE ONLY public.cluster_members
+    ADD CONSTRAINT cluster_members_pkey PRIMARY KEY (node_id);
+
 ALTER TABLE ONLY public.game_results
     ADD CONSTRAINT game_results_pkey PRIMARY KEY (id);
 
@@ -94,6 +112,9 @@ ALTER TABLE ONLY public.players
 ALTER TABLE ONLY public.players
     ADD CONSTRAINT players_user_id_key UNIQUE (user_id);
 
+ALTER TABLE ONLY public.score_rollups
+    ADD CONSTRAINT score_rollups_pkey PRIMARY KEY (period, period_start, user_id);
+
 ALTER TABLE ONLY public.sessions
     ADD CONSTRAINT sessions_pkey PRIMARY KEY (id);
 
@@ -109,6 +130,14 @@ ALTER TABLE ONLY public.users
 ALTER TABLE ONLY public.users
     ADD CONSTRAINT users_username_key UNIQUE (username);
 
+CREATE INDEX players_high_score_id_idx ON public.players USING btree (high_score, id);
+
+CREATE INDEX game_results_created_at_idx ON public.game_results USING btree (created_at);
+
+CREATE INDEX sessions_created_at_idx ON public.sessions USING btree (created_at);
+
+CREATE INDEX score_rollups_board_idx ON public.score_rollups USING btree (period, period_start, best_score, user_id);
+
 ALTER TABLE ONLY public.players
     ADD CONSTRAINT fk3rfv9832bif6rea5edetib8it FOREIGN KEY (user_id) REFERENCES public.users(id);
 
@@ -127,5 +156,8 @@ ALTER TABLE ONLY public.game_results
 ALTER TABLE ONLY public.sessions
     ADD CONSTRAINT fkruie73rneumyyd1bgo6qw8vjt FOREIGN KEY (user_id) REFERENCES public.users(id);
 
+ALTER TABLE ONLY public.score_rollups
+    ADD CONSTRAINT score_rollups_user_id_fkey FOREIGN KEY (user_id) REFERENCES public.users(id);
+
 ALTER TABLE ONLY public.game_rooms
     ADD CONSTRAINT fksm06igutc1bkr42chwj03i1xg FOREIGN KEY (host_id) REFERENCES public.players(id);
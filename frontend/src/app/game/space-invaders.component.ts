@@ -136,6 +136,7 @@ export class SpaceInvadersComponent implements OnInit, OnDestroy {
   private token: string | null = null;
   private currentUserId: string | null = null;
   private roomId: string | null = null;
+  private nodeUrl: string | null = null;
 
   private animationTick = 0;
 
@@ -170,6 +171,7 @@ export class SpaceInvadersComponent implements OnInit, OnDestroy {
 
     this.route.queryParams.pipe(take(1)).subscribe((params) => {
       this.roomId = params['roomId'];
+      this.nodeUrl = params['node'] || null;
       this.connectWebSocket();
     });
 
@@ -227,7 +229,9 @@ export class SpaceInvadersComponent implements OnInit, OnDestroy {
       return;
     }
 
-    const websocketUrl = `${environment.wsUrl}/ws/space-invaders?token=${this.token}&roomId=${this.roomId}`;
+    // a room runs on one backend; connect there, not wherever the load balancer would send us
+    const wsBase = this.nodeUrl ? this.nodeUrl.replace(/^http/, 'ws') : environment.wsUrl;
+    const websocketUrl = `${wsBase}/ws/space-invaders?token=${this.token}&roomId=${this.roomId}`;
 
     this.ws = new WebSocket(websocketUrl);
 
@@ -4,8 +4,10 @@ import { HttpClient } from '@angular/common/http';
 import { catchError, of, Subject } from 'rxjs';
 import { RouterLink } from '@angular/router';
 import { environment } from '../../environments/environment';
+import { AuthService } from '../services/auth.service';
 
-type ScoreRow = { player: string; score: number };
+type ScoreRow = { player: string; score: number; rank?: number };
+type LeaderboardDelta = { changed: ScoreRow[]; removed: string[] };
 
 @Component({
   selector: 'app-leaderboard',
@@ -19,11 +21,58 @@ export class LeaderboardComponent implements OnInit, OnDestroy {
   error: string | null = null;
   rows: ScoreRow[] = [];
   private readonly destroy$ = new Subject<void>();
+  private eventSource: EventSource | null = null;
+  private destroyed = false;
 
-  constructor(private readonly http: HttpClient) {}
+  constructor(
+    private readonly http: HttpClient,
+    private readonly auth: AuthService,
+  ) {}
 
   ngOnInit(): void {
     this.fetch();
+    this.startLeaderboardSse();
+  }
+
+  // The server pushes the ranked top rows, then only the rows that changed
+  private startLeaderboardSse(): void {
+    const token = this.auth.getToken();
+    if (!token) return;
+
+    this.eventSource = new EventSource(
+      `${environment.apiUrl}/leaderboard/stream?token=${encodeURIComponent(token)}`,
+    );
+    this.eventSource.addEventListener('snapshot', (evt: MessageEvent) => {
+      try {
+        this.rows = JSON.parse(evt.data) as ScoreRow[];
+        this.loading = false;
+      } catch {
+        // ignore
+      }
+    });
+    this.eventSource.addEventListener('delta', (evt: MessageEvent) => {
+      try {
+        this.applyDelta(JSON.parse(evt.data) as LeaderboardDelta);
+      } catch {
+        // ignore
+      }
+    });
+    this.eventSource.onerror = () => {
+      // Try to reconnect with a simple backoff; the new stream starts with a snapshot
+      this.eventSource?.close();
+      this.eventSource = null;
+      setTimeout(() => {
+        if (!this.destroyed) this.startLeaderboardSse();
+      }, 2000);
+    };
+  }
+
+  private applyDelta(delta: LeaderboardDelta): void {
+    const gone = new Set([...delta.removed, ...delta.changed.map((row) => row.player)]);
+    this.rows = this.rows
+      .filter((row) => !gone.has(row.player))
+      .concat(delta.changed)
+      .sort((a, b) => (a.rank ?? 0) - (b.rank ?? 0) || a.player.localeCompare(b.player));
   }
 
   fetch(): void {
@@ -57,6 +106,9 @@ export class LeaderboardComponent implements OnInit, OnDestroy {
   }
 
   ngOnDestroy(): void {
+    this.destroyed = true;
+    this.eventSource?.close();
+    this.eventSource = null;
     this.destroy$.next();
     this.destroy$.complete();
   }
@@ -8,4 +8,6 @@ export interface GameRoom {
   startedAt: null | Date;
   endedAt: null | Date;
   hostId: string;
+  // the backend that runs the room; its socket must be opened there
+  node: null | { id: string; url: string };
 }
@@ -21,6 +21,8 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
   selectedRoomId: string | null = null;
   private readonly destroy$ = new Subject<void>();
   private eventSource: EventSource | null = null;
+  // id of the last room event seen, so a reconnect is sent only what it missed
+  private lastEventId: string | null = null;
 
   constructor(
     private readonly http: HttpClient,
@@ -50,6 +52,7 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
             startedAt: r.startedAt,
             endedAt: r.endedAt,
             hostId: '',
+            node: r.node ?? null,
           }));
           console.log('rooms', this.rooms);
         },
@@ -61,7 +64,10 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
     const token = this.auth.getToken();
     if (!token) return;
 
-    const url = `${environment.apiUrl}/rooms/stream?token=${encodeURIComponent(token)}`;
+    let url = `${environment.apiUrl}/rooms/stream?token=${encodeURIComponent(token)}`;
+    if (this.lastEventId) {
+      url += `&lastEventId=${encodeURIComponent(this.lastEventId)}`;
+    }
     this.eventSource = new EventSource(url);
 
     this.eventSource.onmessage = (evt) => {
@@ -71,6 +77,7 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
     // Handle named events
     const bind = (eventName: string, handler: (data: any) => void) => {
       this.eventSource?.addEventListener(eventName, (evt: MessageEvent) => {
+        if (evt.lastEventId) this.lastEventId = evt.lastEventId;
         try {
           const parsed = JSON.parse(evt.data);
           handler(parsed);
@@ -80,6 +87,12 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
       });
     };
 
+    bind('hello', () => {});
+    // sent instead of the missed events when the server cannot replay them
+    bind('snapshot', (e) => {
+      this.rooms = [];
+      for (const room of (e.payload as any[]) ?? []) this.upsertRoom(room);
+    });
     bind('room.created', (e) => this.upsertRoom(e.payload as GameRoom));
     bind('room.updated', (e) => this.upsertRoom(e.payload as GameRoom));
     bind('room.started', (e) => this.upsertRoom(e.payload as GameRoom));
@@ -109,6 +122,7 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
       startedAt: apiRoom.startedAt ?? null,
       endedAt: apiRoom.endedAt ?? null,
       hostId: '',
+      node: apiRoom.node ?? null,
     };
 
     const idx = this.rooms.findIndex((r) => r.roomId === mapped.roomId);
@@ -140,14 +154,17 @@ export class WaitingRoomComponent implements OnInit, OnDestroy {
       });
   }
 
-  joinRoom(roomId: string): void {
+  joinRoom(room: GameRoom): void {
+    const roomId = room.roomId;
     this.http
       .post(`${environment.apiUrl}/rooms/${roomId}/join`, {})
       .pipe(takeUntil(this.destroy$))
       .subscribe({
         next: () => {
           this.selectedRoomId = roomId;
-          this.router.navigate(['/game/space-invaders'], { queryParams: { roomId } });
+          this.router.navigate(['/game/space-invaders'], {
+            queryParams: { roomId, node: room.node?.url || null },
+          });
         },
         error: (err) => console.error('Cannot join room', err),
       });